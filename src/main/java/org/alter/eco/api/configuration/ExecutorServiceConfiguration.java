@@ -1,20 +1,59 @@
 package org.alter.eco.api.configuration;
 
 import org.alter.eco.api.logic.approval.ApproveScheduledOperation;
+import org.alter.eco.api.logic.approval.ApproveScheduledOperation.Phase;
+import org.alter.eco.api.logic.approval.VoteBuffer;
+import org.alter.eco.api.logic.reward.PostLedgerScheduledOperation;
+import org.alter.eco.api.logic.storage.MigrateAttachmentContentScheduledOperation;
+import org.alter.eco.api.service.auth.SigningKeyStore;
+import org.alter.eco.api.service.cache.HotStockCounter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class ExecutorServiceConfiguration {
 
     @Bean
-    public ExecutorService executorService(ApproveScheduledOperation scheduledOperation) {
-        var scheduler = Executors.newScheduledThreadPool(3);
-        scheduler.scheduleWithFixedDelay(scheduledOperation, 10, 60, TimeUnit.SECONDS);
+    public ExecutorService executorService(ApproveScheduledOperation scheduledOperation,
+                                           VoteBuffer voteBuffer,
+                                           PostLedgerScheduledOperation postLedger,
+                                           HotStockCounter hotStockCounter,
+                                           ObjectProvider<SigningKeyStore> signingKeyStore,
+                                           ObjectProvider<MigrateAttachmentContentScheduledOperation> migrateContent,
+                                           @Value("${auth.local.refresh-m}") Long keysRefreshMinutes,
+                                           @Value("${operation.approval.catch-up-m}") Long catchUpMinutes) {
+        var scheduler = Executors.newScheduledThreadPool(scheduledOperation.partitions() + postLedger.shards() + 5);
+        for (int partition = 0; partition < scheduledOperation.partitions(); partition++) {
+            // the vote flush settles thresholds, these rare runs catch up with votes buffered by a lost instance
+            scheduler.scheduleWithFixedDelay(scheduledOperation.unit(Phase.COMPLETING, partition), 10, catchUpMinutes * 60, TimeUnit.SECONDS);
+            scheduler.scheduleWithFixedDelay(scheduledOperation.unit(Phase.APPROVING, partition), 10, catchUpMinutes * 60, TimeUnit.SECONDS);
+            scheduler.scheduleWithFixedDelay(scheduledOperation.unit(Phase.TRASHING, partition), 10, 60, TimeUnit.SECONDS);
+        }
+        // counters of votes buffered by a lost instance are recomputed for the catch-up runs
+        scheduler.scheduleWithFixedDelay(voteBuffer::reconcile, catchUpMinutes, catchUpMinutes, TimeUnit.MINUTES);
+        scheduler.scheduleWithFixedDelay(voteBuffer::flush, voteBuffer.flushIntervalMillis(), voteBuffer.flushIntervalMillis(), TimeUnit.MILLISECONDS);
+        for (int shard = 0; shard < postLedger.shards(); shard++) {
+            scheduler.scheduleWithFixedDelay(postLedger.unit(shard), postLedger.intervalMillis(), postLedger.intervalMillis(), TimeUnit.MILLISECONDS);
+        }
+        if (hotStockCounter.enabled()) {
+            scheduler.scheduleWithFixedDelay(hotStockCounter::reconcile, 0, hotStockCounter.reconcileIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+        migrateContent.ifAvailable(m -> scheduler.scheduleWithFixedDelay(m.unit(), 10, m.intervalSeconds(), TimeUnit.SECONDS));
+        signingKeyStore.ifAvailable(s -> scheduler.scheduleWithFixedDelay(s::refresh, keysRefreshMinutes, keysRefreshMinutes, TimeUnit.MINUTES));
         return scheduler;
     }
+
+    @Bean
+    public ExecutorService thumbnailExecutor(@Value("${attachment.thumbnail.threads}") Integer threads,
+                                             @Value("${attachment.thumbnail.queue-size}") Integer queueSize) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize));
+    }
 }
@@ -5,16 +5,16 @@ import lombok.RequiredArgsConstructor;
 import org.alter.eco.api.jooq.enums.VoteType;
 import org.alter.eco.api.logic.approval.VoteForTaskOperation;
 import org.alter.eco.api.logic.approval.VoteForTaskOperation.VoteForTaskRequest;
+import org.alter.eco.api.model.VoteTally;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import static java.util.Objects.requireNonNullElse;
+import static org.alter.eco.api.controller.AuthenticationFilter.USER_ATTRIBUTE;
 
 @RestController
 @RequestMapping("/api")
@@ -23,26 +23,20 @@ public class ApprovalController {
 
     private final static Logger log = LoggerFactory.getLogger(RestController.class);
 
-    private final ControllerHelper helper;
-
     private final VoteForTaskOperation voteForTaskOperation;
 
     @PostMapping("/vote")
     @Operation(
-        description = "Vote for task. Client obtained from token.",
+        description = "Vote for task. Client obtained from token. Voting again replaces the previous vote.",
         summary = "Vote for task"
     )
-    public void voteForTask(@RequestParam(value = "taskId") Long taskId,
-                            @RequestParam(value = "type") VoteType voteType,
-                            @RequestHeader("Authorization") String token) {
+    public VoteTally voteForTask(@RequestParam(value = "taskId") Long taskId,
+                                 @RequestParam(value = "type") VoteType voteType,
+                                 @RequestAttribute(USER_ATTRIBUTE) String user) {
         log.info("ApprovalController.voteForTask.in taskId = {}, voteType = {}", taskId, voteType);
-        helper.obtainToken(token);
-        var request = new VoteForTaskRequest(
-            requireNonNullElse(MDC.get("user"), "default"),
-            taskId,
-            voteType
-        );
-        voteForTaskOperation.process(request);
+        var request = new VoteForTaskRequest(user, taskId, voteType);
+        var result = voteForTaskOperation.process(request);
         log.info("ApprovalController.voteForTask.out");
+        return result;
     }
 }
@@ -0,0 +1,78 @@
+package org.alter.eco.api.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.alter.eco.api.exception.HttpCodeException;
+import org.alter.eco.api.service.auth.AuthService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static java.util.Objects.isNull;
+import static org.alter.eco.api.exception.AuthenticationError.UNAUTHORIZED;
+
+@Component
+@RequiredArgsConstructor
+public class AuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String USER_ATTRIBUTE = "user";
+
+    private final static Logger log = LoggerFactory.getLogger(AuthenticationFilter.class);
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final AuthService authService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        var path = request.getServletPath();
+        return !path.startsWith("/api/") || path.startsWith("/api/swagger");
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException {
+        String user;
+        try {
+            user = isAsyncDispatch(request) ? (String) request.getAttribute(USER_ATTRIBUTE) : authenticate(request);
+        } catch (HttpCodeException e) {
+            log.error("AuthenticationFilter.doFilterInternal.thrown", e);
+            response.sendError(e.status.value(), e.body);
+            return;
+        }
+        request.setAttribute(USER_ATTRIBUTE, user);
+        MDC.put(USER_ATTRIBUTE, user);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(USER_ATTRIBUTE);
+        }
+    }
+
+    private String authenticate(HttpServletRequest request) {
+        var header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (isNull(header)) {
+            throw UNAUTHORIZED.exception("Authorization header is missing");
+        }
+        var token = header.startsWith(BEARER_PREFIX) ? header.substring(BEARER_PREFIX.length()).trim() : header.trim();
+        if (token.isEmpty()) {
+            throw UNAUTHORIZED.exception("Token is empty");
+        }
+        var uuid = authService.getUuidFromToken(token);
+        log.info("AuthenticationFilter.authenticate Request by user with uuid = {}", uuid);
+        return uuid;
+    }
+}
@@ -7,10 +7,12 @@ import org.alter.eco.api.model.Account;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import static org.alter.eco.api.controller.AuthenticationFilter.USER_ATTRIBUTE;
+
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
@@ -18,20 +20,17 @@ public class RewardController {
 
     private final static Logger log = LoggerFactory.getLogger(RewardController.class);
 
-    private final ControllerHelper helper;
-
     private final GetAccountByIdOperation getAccountByIdOperation;
 
     @GetMapping(value = "/account")
     @Operation(
-        description = "Get account that attached to user. If account doesnt exist this operation creates new empty account and return it.",
+        description = "Get account that attached to user. If account doesnt exist an empty account is returned. The balance may be a few seconds stale.",
         summary = "Get user account"
     )
-    public Account getAccountByUser(@RequestHeader("Authorization") String token) {
+    public Account getAccountByUser(@RequestAttribute(USER_ATTRIBUTE) String user) {
         log.info("RewardController.getAccountById.in");
-        helper.obtainToken(token);
-        var result = getAccountByIdOperation.process();
+        var result = getAccountByIdOperation.process(user);
         log.info("RewardController.getAccountById.out");
-        return Account.fromRecord(result);
+        return result;
     }
 }
@@ -3,6 +3,9 @@ package org.alter.eco.api.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import lombok.RequiredArgsConstructor;
+import org.alter.eco.api.logic.shop.CheckoutOperation;
+import org.alter.eco.api.logic.shop.CheckoutOperation.CheckoutLine;
+import org.alter.eco.api.logic.shop.CheckoutOperation.CheckoutRequest;
 import org.alter.eco.api.logic.shop.CreateItemOperation;
 import org.alter.eco.api.logic.shop.CreateItemOperation.CreateItemRequest;
 import org.alter.eco.api.logic.shop.CreateItemOperation.ItemAttachPhotosRequest;
@@ -14,20 +17,29 @@ import org.alter.eco.api.logic.shop.FindItemByIdOperation;
 import org.alter.eco.api.logic.shop.FindItemsByUserOperation;
 import org.alter.eco.api.logic.shop.FindItemsOperation;
 import org.alter.eco.api.logic.shop.FindItemsOperation.FindItemsRequest;
+import org.alter.eco.api.logic.shop.FindPurchasesByUserOperation;
+import org.alter.eco.api.logic.shop.FindPurchasesByUserOperation.FindPurchasesRequest;
 import org.alter.eco.api.logic.shop.PurchaseItemOperation;
+import org.alter.eco.api.logic.shop.PurchaseItemOperation.PurchaseRequest;
+import org.alter.eco.api.model.AttachmentContent;
 import org.alter.eco.api.model.Item;
+import org.alter.eco.api.model.Page;
+import org.alter.eco.api.model.Purchase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
@@ -41,6 +53,7 @@ import javax.validation.Valid;
 
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toList;
+import static org.alter.eco.api.controller.AuthenticationFilter.USER_ATTRIBUTE;
 
 @RestController
 @RequestMapping("/api")
@@ -49,8 +62,6 @@ public class ShopController {
 
     private final static Logger log = LoggerFactory.getLogger(ShopController.class);
 
-    private final ControllerHelper helper;
-
     private final CreateItemOperation createItemOperation;
     private final FindItemsOperation findItemsOperation;
     private final FindItemByIdOperation findItemByIdOperation;
@@ -58,7 +69,9 @@ public class ShopController {
     private final FindAttachmentsByItemIdOperation findAttachmentsByItemIdOperation;
     private final EditItemOperation editItemOperation;
     private final PurchaseItemOperation purchaseItemOperation;
+    private final CheckoutOperation checkoutOperation;
     private final FindItemsByUserOperation findItemsByUserOperation;
+    private final FindPurchasesByUserOperation findPurchasesByUserOperation;
 
     @PostMapping("/items")
     @Operation(
@@ -67,10 +80,8 @@ public class ShopController {
     )
     public List<Item> findItems(
         @Parameter(description = "'searchString' allows fulltext search in title field.")
-        @Valid @RequestBody FindItemsRequest request,
-        @RequestHeader("Authorization") String token) {
+        @Valid @RequestBody FindItemsRequest request) {
         log.info("ShopController.findItems.in request = {}", request);
-        helper.obtainToken(token);
         var result = findItemsOperation.process(request);
         log.info("ShopController.findItems.out");
         return result;
@@ -80,10 +91,8 @@ public class ShopController {
     @Operation(
         summary = "Get item by id"
     )
-    public Item getItemById(@PathVariable(value = "id") Long id,
-                            @RequestHeader("Authorization") String token) {
+    public Item getItemById(@PathVariable(value = "id") Long id) {
         log.info("ShopController.getItemById.in id = {}", id);
-        helper.obtainToken(token);
         var result = findItemByIdOperation.process(id);
         log.info("ShopController.getItemById.out");
         return result;
@@ -98,10 +107,8 @@ public class ShopController {
         summary = "Create item"
     )
     public Long createItem(@RequestPart("item") Item Item,
-                           @RequestPart(value = "attachment", required = false) List<MultipartFile> attachment,
-                           @RequestHeader("Authorization") String token) {
+                           @RequestPart(value = "attachment", required = false) List<MultipartFile> attachment) {
         log.info("ShopController.createItem.in Item = {}", Item);
-        helper.obtainToken(token);
         var attachments = ofNullable(attachment).orElse(List.of()).stream()
             .map(a -> {
                 try {
@@ -124,10 +131,8 @@ public class ShopController {
     public void editItem(@RequestPart("ttem") Item item,
                          @RequestPart(value = "attachment", required = false) List<MultipartFile> attachment,
                          @Parameter(description = "Whether delete or not delete attached photos.")
-                         @RequestParam(value = "detach") boolean detach,
-                         @RequestHeader("Authorization") String token) {
+                         @RequestParam(value = "detach") boolean detach) {
         log.info("ShopController.editItem.in Item = {}", item);
-        helper.obtainToken(token);
         var attachments = ofNullable(attachment).orElse(List.of()).stream()
             .map(a -> {
                 try {
@@ -151,16 +156,14 @@ public class ShopController {
     )
     public MultiValueMap<String, HttpEntity<?>> findAttachmentsByItemId(
         @Parameter(description = "Shop item's id.")
-        @PathVariable(value = "id") Long itemId,
-        @RequestHeader("Authorization") String token) {
+        @PathVariable(value = "id") Long itemId) {
         log.info("ShopController.findAttachments.in id = {}", itemId);
-        helper.obtainToken(token);
         var result = findAttachmentsByItemIdOperation.process(itemId);
         var builder = new MultipartBodyBuilder();
         result.forEach(a -> builder.part(
             "attachment",
-            a.getContent(),
-            MediaType.valueOf(a.getType())
+            a.content(),
+            MediaType.valueOf(a.type())
         ));
         var response = builder.build();
         log.info("ShopController.findAttachments.out");
@@ -175,23 +178,52 @@ public class ShopController {
     public void purchaseItem(
         @Parameter(description = "Shop item's id")
         @PathVariable(value = "id") Long itemId,
-        @RequestHeader("Authorization") String token) {
+        @RequestAttribute(USER_ATTRIBUTE) String user) {
         log.info("ShopController.purchaseItem.in itemId = {}", itemId);
-        helper.obtainToken(token);
-        purchaseItemOperation.process(itemId);
+        purchaseItemOperation.process(new PurchaseRequest(user, itemId));
         log.info("ShopController.purchaseItem.out");
     }
 
+    @PostMapping(value = "/checkout")
+    @Operation(
+        description = "Purchase several items at once, the whole basket succeeds or fails together. " +
+            "Responds with the total written off. User obtained from token.",
+        summary = "Checkout basket"
+    )
+    public Long checkout(@RequestBody List<CheckoutLine> lines,
+                         @RequestAttribute(USER_ATTRIBUTE) String user) {
+        log.info("ShopController.checkout.in lines = {}", lines);
+        var result = checkoutOperation.process(new CheckoutRequest(user, lines));
+        log.info("ShopController.checkout.out");
+        return result;
+    }
+
+    @GetMapping(value = "/purchases")
+    @Operation(
+        description = "Get user's purchases with the purchased items, newest first. User obtained from token. " +
+            "Pass 'cursor' from the previous page's " + Page.CURSOR_HEADER + " header to get the next page.",
+        summary = "Get user's purchase history"
+    )
+    public ResponseEntity<List<Purchase>> findPurchases(@RequestParam(value = "cursor", required = false) String cursor,
+                                                        @RequestParam(value = "limit", required = false) Long limit,
+                                                        @RequestAttribute(USER_ATTRIBUTE) String user) {
+        log.info("ShopController.findPurchases.in cursor = {}, limit = {}", cursor, limit);
+        var result = findPurchasesByUserOperation.process(new FindPurchasesRequest(user, cursor, limit));
+        var response = ResponseEntity.ok();
+        ofNullable(result.cursor()).ifPresent(c -> response.header(Page.CURSOR_HEADER, c));
+        log.info("ShopController.findPurchases.out");
+        return response.body(result.content());
+    }
+
     @GetMapping(value = "/items")
     @ResponseBody
     @Operation(
         description = "Get shop items that have been purchased by user. User obtained from token.",
         summary = "Get user's items"
     )
-    public List<Item> findItemsByUser(@RequestHeader("Authorization") String token) {
+    public List<Item> findItemsByUser(@RequestAttribute(USER_ATTRIBUTE) String user) {
         log.info("ShopController.findItemsByUser.in");
-        helper.obtainToken(token);
-        var result = findItemsByUserOperation.process();
+        var result = findItemsByUserOperation.process(user);
         log.info("ShopController.findItemsByUser.out");
         return result;
     }
@@ -200,16 +232,20 @@ public class ShopController {
         produces = {MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE})
     @ResponseBody
     @Operation(
-        description = "Get certain shop item's attachment by it's id.",
+        description = "Get certain shop item's attachment by it's id. Responds with 304 when If-None-Match matches the ETag.",
         summary = "Get attachment by id"
     )
-    public byte[] findAttachmentsById(
+    public ResponseEntity<Resource> findAttachmentsById(
         @Parameter(description = "Attachment's id.")
-        @PathVariable(value = "id") Long id,
-        @RequestHeader("Authorization") String token) {
+        @PathVariable(value = "id") Long id) {
         log.info("ShopController.findAttachmentsById.in id = {}", id);
-        helper.obtainToken(token);
-        var result = findItemAttachmentByIdOperation.process(id).getContent();
+        var attachment = findItemAttachmentByIdOperation.process(id);
+        var result = ResponseEntity.ok()
+            .eTag(attachment.etag())
+            .header(HttpHeaders.CACHE_CONTROL, AttachmentContent.CACHE_CONTROL)
+            .contentType(MediaType.valueOf(attachment.type()))
+            .contentLength(attachment.length())
+            .body(attachment.content());
         log.info("ShopController.findAttachmentsById.out");
         return result;
     }
@@ -10,17 +10,25 @@ import org.alter.eco.api.logic.task.CreateTaskOperation.CreateTaskRequest;
 import org.alter.eco.api.logic.task.EditTaskOperation;
 import org.alter.eco.api.logic.task.EditTaskOperation.EditTaskRequest;
 import org.alter.eco.api.logic.task.FindAttachmentByIdOperation;
+import org.alter.eco.api.logic.task.FindAttachmentByIdOperation.FindAttachmentRequest;
 import org.alter.eco.api.logic.task.FindAttachmentsByTaskIdOperation;
 import org.alter.eco.api.logic.task.FindTaskByIdOperation;
 import org.alter.eco.api.logic.task.FindTasksOperation;
 import org.alter.eco.api.logic.task.FindTasksOperation.FindTasksRequest;
 import org.alter.eco.api.logic.task.UpdateTaskStatusOperation;
 import org.alter.eco.api.logic.task.UpdateTaskStatusOperation.UpdateStatusRequest;
+import org.alter.eco.api.model.AttachmentContent;
+import org.alter.eco.api.model.Page;
 import org.alter.eco.api.model.Task;
+import org.alter.eco.api.model.ThumbnailSize;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -28,8 +36,8 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
@@ -41,8 +49,10 @@ import java.io.IOException;
 import java.util.List;
 import javax.validation.Valid;
 
+import static java.util.Objects.isNull;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toList;
+import static org.alter.eco.api.controller.AuthenticationFilter.USER_ATTRIBUTE;
 
 @RestController
 @RequestMapping("/api")
@@ -51,8 +61,6 @@ public class TaskController {
 
     private final static Logger log = LoggerFactory.getLogger(TaskController.class);
 
-    private final ControllerHelper helper;
-
     private final CreateTaskOperation createTaskOperation;
     private final FindTasksOperation findTasksOperation;
     private final FindTaskByIdOperation findTaskByIdOperation;
@@ -66,25 +74,26 @@ public class TaskController {
         description = "Find all tasks that satisfy the conditions.",
         summary = "Find tasks by filters"
     )
-    public List<Task> findTasks(
-        @Parameter(description = "'searchString' allows fulltext search in title field.")
+    public ResponseEntity<List<Task>> findTasks(
+        @Parameter(description = "'searchString' allows fulltext search in title and description fields. " +
+            "'near' with 'radius' (in coordinate degrees) and 'box' filter tasks by location, 'near' orders them by distance. " +
+            "Pass 'cursor' from the previous page's " + Page.CURSOR_HEADER + " header to seek instead of using 'offset'.")
         @Valid @RequestBody FindTasksRequest request,
-        @RequestHeader("Authorization") String token) {
+        @RequestAttribute(USER_ATTRIBUTE) String user) {
         log.info("TaskController.findTasks.in request = {}", request);
-        helper.obtainToken(token);
-        var result = findTasksOperation.process(request);
+        var result = findTasksOperation.process(request, user);
+        var response = ResponseEntity.ok();
+        ofNullable(result.cursor()).ifPresent(c -> response.header(Page.CURSOR_HEADER, c));
         log.info("TaskController.findTasks.out");
-        return result;
+        return response.body(result.content());
     }
 
     @GetMapping("/task/{id}")
     @Operation(
         summary = "Get task by id"
     )
-    public Task getTaskById(@PathVariable(value = "id") Long id,
-                            @RequestHeader("Authorization") String token) {
+    public Task getTaskById(@PathVariable(value = "id") Long id) {
         log.info("TaskController.getTaskById.in id = {}", id);
-        helper.obtainToken(token);
         var result = findTaskByIdOperation.process(id);
         log.info("TaskController.getTaskById.out");
         return result;
@@ -100,9 +109,8 @@ public class TaskController {
     )
     public Long createTask(@RequestPart("task") Task task,
                            @RequestPart(value = "attachment", required = false) List<MultipartFile> attachment,
-                           @RequestHeader("Authorization") String token) {
+                           @RequestAttribute(USER_ATTRIBUTE) String user) {
         log.info("TaskController.createTask.in task = {}", task);
-        helper.obtainToken(token);
         var attachments = ofNullable(attachment).orElse(List.of()).stream()
             .map(a -> {
                 try {
@@ -111,7 +119,7 @@ public class TaskController {
                     throw new RuntimeException(e);
                 }
             }).collect(toList());
-        var request = new CreateTaskRequest(task.toRecord(), attachments);
+        var request = new CreateTaskRequest(user, task.toRecord(), attachments);
         var result = createTaskOperation.process(request);
         log.info("TaskController.createTask.out");
         return result;
@@ -125,10 +133,8 @@ public class TaskController {
     public void editTask(@RequestPart("task") Task task,
                          @RequestPart(value = "attachment", required = false) List<MultipartFile> attachment,
                          @Parameter(description = "Whether delete or not delete attached photos.")
-                         @RequestParam(value = "detach") boolean detach,
-                         @RequestHeader("Authorization") String token) {
+                         @RequestParam(value = "detach") boolean detach) {
         log.info("TaskController.editTask.in task = {}", task);
-        helper.obtainToken(token);
         var attachments = ofNullable(attachment).orElse(List.of()).stream()
             .map(a -> {
                 try {
@@ -148,10 +154,8 @@ public class TaskController {
         summary = "Update task status"
     )
     public void updateStatus(@PathVariable(value = "id") Long id,
-                             @RequestParam("status") TaskStatus status,
-                             @RequestHeader("Authorization") String token) {
+                             @RequestParam("status") TaskStatus status) {
         log.info("TaskController.updateStatus.in id = {}, status = {}", id, status);
-        helper.obtainToken(token);
         var request = new UpdateStatusRequest(id, status);
         updateTaskStatusOperation.process(request);
         log.info("TaskController.updateStatus.out");
@@ -167,16 +171,14 @@ public class TaskController {
     )
     public MultiValueMap<String, HttpEntity<?>> findAttachmentsByTaskId(
         @Parameter(description = "Task's id.")
-        @PathVariable(value = "id") Long taskId,
-        @RequestHeader("Authorization") String token) {
+        @PathVariable(value = "id") Long taskId) {
         log.info("TaskController.findAttachments.in id = {}", taskId);
-        helper.obtainToken(token);
         var result = findAttachmentsByTaskIdOperation.process(taskId);
         var builder = new MultipartBodyBuilder();
         result.forEach(a -> builder.part(
             "attachment",
-            a.getContent(),
-            MediaType.valueOf(a.getType())
+            a.content(),
+            MediaType.valueOf(a.type())
         ));
         var response = builder.build();
         log.info("TaskController.findAttachments.out");
@@ -187,16 +189,27 @@ public class TaskController {
         produces = {MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE})
     @ResponseBody
     @Operation(
-        description = "Get certain task's attachment by it's id.",
+        description = "Get certain task's attachment by it's id. Responds with 304 when If-None-Match matches the ETag.",
         summary = "Get attachment by id"
     )
-    public byte[] findAttachmentsById(
+    public ResponseEntity<Resource> findAttachmentsById(
         @Parameter(description = "Attachment's id.")
         @PathVariable(value = "id") Long id,
-        @RequestHeader("Authorization") String token) {
-        log.info("TaskController.findAttachments.in id = {}", id);
-        helper.obtainToken(token);
-        var result = findAttachmentByIdOperation.process(id).getContent();
+        @Parameter(description = "Resized variant: thumb (160px) or preview (640px).")
+        @RequestParam(value = "size", required = false) String size) {
+        log.info("TaskController.findAttachments.in id = {}, size = {}", id, size);
+        var request = new FindAttachmentRequest(id, isNull(size) ? null : ThumbnailSize.of(size));
+        var attachment = findAttachmentByIdOperation.process(request);
+        var builder = ResponseEntity.ok()
+            .contentType(MediaType.valueOf(attachment.type()))
+            .contentLength(attachment.length());
+        if (attachment.cacheable()) {
+            builder.eTag(attachment.etag())
+                .header(HttpHeaders.CACHE_CONTROL, AttachmentContent.CACHE_CONTROL);
+        } else {
+            builder.cacheControl(CacheControl.noCache());
+        }
+        var result = builder.body(attachment.content());
         log.info("TaskController.findAttachments.out");
         return result;
     }
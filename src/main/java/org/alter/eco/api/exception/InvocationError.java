@@ -3,7 +3,8 @@ package org.alter.eco.api.exception;
 public enum InvocationError {
 
     POSTGRES_INVOCATION_ERROR(500, "Error invoking Postgres"),
-    FIREBASE_INVOCATION_ERROR(400, "Error invoking Firebase");
+    FIREBASE_INVOCATION_ERROR(400, "Error invoking Firebase"),
+    STORAGE_INVOCATION_ERROR(500, "Error invoking attachment storage");
 
     public final int status;
     public final String description;
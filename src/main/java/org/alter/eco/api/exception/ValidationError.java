@@ -2,7 +2,11 @@ package org.alter.eco.api.exception;
 
 public enum ValidationError {
 
-    INVALID_ATTACH_REQUEST(400, "Error parsing attach request");
+    INVALID_ATTACH_REQUEST(400, "Error parsing attach request"),
+    INVALID_CURSOR(400, "Error parsing cursor"),
+    INVALID_PAGE_SIZE(400, "Error parsing page size"),
+    INVALID_THUMBNAIL_SIZE(400, "Error parsing thumbnail size"),
+    INVALID_CHECKOUT_REQUEST(400, "Error parsing checkout request");
 
     public final int status;
     public final String description;
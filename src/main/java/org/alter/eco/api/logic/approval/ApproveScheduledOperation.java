@@ -1,31 +1,20 @@
 package org.alter.eco.api.logic.approval;
 
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
-import org.alter.eco.api.exception.HttpCodeException;
 import org.alter.eco.api.jooq.enums.TaskStatus;
-import org.alter.eco.api.jooq.enums.VoteType;
-import org.alter.eco.api.logic.reward.AccrualByClientIdOperation;
-import org.alter.eco.api.logic.reward.AccrualByClientIdOperation.AccrualRequest;
-import org.alter.eco.api.logic.task.UpdateTaskStatusOperation;
-import org.alter.eco.api.logic.task.UpdateTaskStatusOperation.UpdateStatusRequest;
 import org.alter.eco.api.service.db.ApprovalService;
-import org.alter.eco.api.service.db.TaskService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
-import static org.alter.eco.api.exception.ApplicationError.NOT_FOUND_BY_ID;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
-@Transactional(propagation = Propagation.REQUIRED)
-public class ApproveScheduledOperation extends Thread {
+public class ApproveScheduledOperation {
 
     private static final Logger log = LoggerFactory.getLogger(ApproveScheduledOperation.class);
 
@@ -37,24 +26,17 @@ public class ApproveScheduledOperation extends Thread {
     private Long WAITING_FOR_APPROVE_THRESHOLD_COUNT;
     @Value("${operation.approval.resolved-count}")
     private Long RESOLVED_THRESHOLD_COUNT;
-    @Value("${operation.approval.reward.approve-attendee}")
-    private Long APPROVE_REWARD;
-    @Value("${operation.approval.reward.complete-attendee}")
-    private Long COMPLETE_REWARD;
-    @Value("${operation.approval.reward.trash-attendee}")
-    private Long TRASH_REWARD;
-    @Value("${operation.approval.reward.creator}")
-    private Long CREATOR_REWARD;
+    @Value("${operation.approval.sweep-chunk-size}")
+    private Integer SWEEP_CHUNK_SIZE;
+    @Value("${operation.approval.sweep-partitions}")
+    private Integer SWEEP_PARTITIONS;
 
     private FindByTimeShiftAndCounterRequest approvingRequest;
     private FindByTimeShiftAndCounterRequest completingRequest;
     private FindByTasksForTrashingRequest trashingRequest;
 
-    private final TaskService taskService;
     private final ApprovalService approvalService;
-
-    private final AccrualByClientIdOperation accrualByClientIdOperation;
-    private final UpdateTaskStatusOperation updateTaskStatusOperation;
+    private final SettleChunkOperation settleChunkOperation;
 
     @EventListener(ApplicationStartedEvent.class)
     public void init() {
@@ -62,63 +44,89 @@ public class ApproveScheduledOperation extends Thread {
             .ofWaitingForApprove(WAITING_FOR_APPROVE_THRESHOLD_MINUTES, WAITING_FOR_APPROVE_THRESHOLD_COUNT);
         this.completingRequest = FindByTimeShiftAndCounterRequest
             .ofResolved(RESOLVED_THRESHOLD_MINUTES, RESOLVED_THRESHOLD_COUNT);
-        this.trashingRequest = new FindByTasksForTrashingRequest(WAITING_FOR_APPROVE_THRESHOLD_MINUTES,
-                                                                 RESOLVED_THRESHOLD_MINUTES,
-                                                                 WAITING_FOR_APPROVE_THRESHOLD_COUNT,
+        this.trashingRequest = new FindByTasksForTrashingRequest(WAITING_FOR_APPROVE_THRESHOLD_COUNT,
                                                                  RESOLVED_THRESHOLD_COUNT);
     }
 
-    @Override
-    @SneakyThrows
-    public void run() {
-        log.info("ApproveScheduledOperation.run.in");
-        try {
-            internalRun();
-            log.info("ApproveScheduledOperation.run.out");
-        } catch (HttpCodeException e) {
-            log.error("ApproveScheduledOperation.process.thrown", e);
-            throw e;
-        } catch (Exception e) {
-            log.error("ApproveScheduledOperation.run.thrown Pause executor for 30 seconds", e);
-            Thread.sleep(30 * 1000);
-        }
+    public int partitions() {
+        return SWEEP_PARTITIONS;
     }
 
-    public void internalRun() {
-        approvalService.findTasksForApproving(completingRequest).forEach(
-            a -> {
-                approvalService.findClientIdsForAccrual(request(a.getTaskId(), VoteType.APPROVE))
-                    .forEach(u -> accrualByClientIdOperation.process(AccrualRequest.system(u, COMPLETE_REWARD)));
-                updateTaskStatusOperation.process(new UpdateStatusRequest(a.getTaskId(), TaskStatus.COMPLETED));
-                approvalService.deleteUserVotes(a.getTaskId());
-                var task = taskService.findById(a.getTaskId())
-                    .orElseThrow(() -> NOT_FOUND_BY_ID.exception("No such task exist with id = " + a.getTaskId()));
-                accrualByClientIdOperation.process(AccrualRequest.system(task.getAssignee(), task.getReward()));
-                accrualByClientIdOperation.process(AccrualRequest.system(task.getCreatedBy(), CREATOR_REWARD));
+    // every phase and partition is an independent unit, so units run in parallel and fail separately;
+    // exceptions never leave the unit, otherwise the executor would cancel its schedule
+    public Runnable unit(Phase phase, int partition) {
+        var scope = new SweepScope(partition, SWEEP_PARTITIONS, null);
+        return () -> {
+            log.info("ApproveScheduledOperation.run.in phase = {}, scope = {}", phase, scope);
+            var started = System.nanoTime();
+            try {
+                var settled = drain(phase, scope);
+                log.info("ApproveScheduledOperation.run.out phase = {}, scope = {}, settled = {}, duration = {} ms",
+                    phase, scope, settled, (System.nanoTime() - started) / 1_000_000);
+            } catch (Exception e) {
+                log.error("ApproveScheduledOperation.run.thrown phase = {}, scope = {}", phase, scope, e);
             }
-        );
-
-        approvalService.findTasksForApproving(approvingRequest).forEach(
-            a -> {
-                approvalService.findClientIdsForAccrual(request(a.getTaskId(), VoteType.APPROVE))
-                    .forEach(u -> accrualByClientIdOperation.process(AccrualRequest.system(u, APPROVE_REWARD)));
-                updateTaskStatusOperation.process(new UpdateStatusRequest(a.getTaskId(), TaskStatus.TO_DO));
-                approvalService.deleteUserVotes(a.getTaskId());
+        };
+    }
+
+    // every chunk commits on its own, a short chunk means the other instances took the rest
+    private int drain(Phase phase, SweepScope scope) {
+        var settled = 0;
+        while (true) {
+            int claimed;
+            try {
+                claimed = settleChunk(phase, scope, SWEEP_CHUNK_SIZE);
+            } catch (Exception e) {
+                log.warn("ApproveScheduledOperation.drain chunk failed, settling tasks one by one", e);
+                return settled + settleOneByOne(phase, scope);
             }
-        );
-
-        approvalService.findTasksForTrashing(trashingRequest).forEach(
-            a -> {
-                approvalService.findClientIdsForAccrual(request(a.getTaskId(), VoteType.REJECT))
-                    .forEach(u -> accrualByClientIdOperation.process(AccrualRequest.system(u, TRASH_REWARD)));
-                updateTaskStatusOperation.process(new UpdateStatusRequest(a.getTaskId(), TaskStatus.TRASHED));
-                approvalService.deleteUserVotes(a.getTaskId());
+            settled += claimed;
+            if (claimed < SWEEP_CHUNK_SIZE) {
+                return settled;
             }
-        );
+        }
+    }
+
+    // one poisoned task only rolls back its own transaction and is retried by the next sweep
+    private int settleOneByOne(Phase phase, SweepScope scope) {
+        var settled = 0;
+        for (var taskId : findIds(phase, scope)) {
+            try {
+                settled += settleChunk(phase, scope.of(taskId), 1);
+            } catch (Exception e) {
+                log.error("ApproveScheduledOperation.settleOneByOne.thrown taskId = {}", taskId, e);
+            }
+        }
+        return settled;
     }
 
-    private FindClientIdsForAccrualRequest request(Long taskId, VoteType voteType) {
-        return new FindClientIdsForAccrualRequest(taskId, voteType);
+    private int settleChunk(Phase phase, SweepScope scope, int chunkSize) {
+        return switch (phase) {
+            case COMPLETING -> settleChunkOperation.complete(completingRequest, scope, chunkSize);
+            case APPROVING -> settleChunkOperation.approve(approvingRequest, scope, chunkSize);
+            case TRASHING -> settleChunkOperation.trash(trashingRequest, scope, chunkSize);
+        };
+    }
+
+    private List<Long> findIds(Phase phase, SweepScope scope) {
+        return switch (phase) {
+            case COMPLETING -> approvalService.findIdsForApproving(completingRequest, scope, SWEEP_CHUNK_SIZE);
+            case APPROVING -> approvalService.findIdsForApproving(approvingRequest, scope, SWEEP_CHUNK_SIZE);
+            case TRASHING -> approvalService.findIdsForTrashing(trashingRequest, scope, SWEEP_CHUNK_SIZE);
+        };
+    }
+
+    public enum Phase {
+        COMPLETING,
+        APPROVING,
+        TRASHING
+    }
+
+    public static record SweepScope(int partition, int partitions, Long taskId) {
+
+        public SweepScope of(Long taskId) {
+            return new SweepScope(partition, partitions, taskId);
+        }
     }
 
     public static record FindByTimeShiftAndCounterRequest(Long minutesThreshold, Long counterThreshold, TaskStatus status) {
@@ -132,8 +140,5 @@ public class ApproveScheduledOperation extends Thread {
         }
     }
 
-    public static record FindByTasksForTrashingRequest(Long approveMinutesThreshold, Long completeMinutesThreshold,
-                                                       Long approveCountThreshold, Long completeCountThreshold) {}
-
-    public static record FindClientIdsForAccrualRequest(Long taskId, VoteType type) {}
+    public static record FindByTasksForTrashingRequest(Long approveCountThreshold, Long completeCountThreshold) {}
 }
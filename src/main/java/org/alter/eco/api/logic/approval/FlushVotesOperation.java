@@ -0,0 +1,87 @@
+package org.alter.eco.api.logic.approval;
+
+import lombok.RequiredArgsConstructor;
+import org.alter.eco.api.jooq.enums.TaskStatus;
+import org.alter.eco.api.jooq.tables.records.ApprovalRecord;
+import org.alter.eco.api.service.db.ApprovalService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Not transactional: counters are recomputed by a single statement and every settlement commits on its own,
+// a claim made in an outer transaction would wait on the counter rows that transaction already holds
+@Component
+@RequiredArgsConstructor
+public class FlushVotesOperation {
+
+    private final static Logger log = LoggerFactory.getLogger(FlushVotesOperation.class);
+
+    @Value("${operation.approval.waiting-for-approve-count}")
+    private Long WAITING_FOR_APPROVE_THRESHOLD_COUNT;
+    @Value("${operation.approval.resolved-count}")
+    private Long RESOLVED_THRESHOLD_COUNT;
+
+    private final ApprovalService approvalService;
+    private final SettleChunkOperation settleChunkOperation;
+
+    // returns the tasks whose settlement failed
+    public Set<Long> process(Collection<Long> taskIds) {
+        log.info("FlushVotesOperation.process.in taskIds = {}", taskIds);
+        var transitions = new ArrayList<Transition>();
+        for (var approval : approvalService.recomputeCounters(taskIds)) {
+            var status = reachedStatus(approval);
+            if (status != null) {
+                transitions.add(new Transition(approval.getTaskId(), approval.getStatus(), status));
+            }
+        }
+        var failed = transitions.isEmpty() ? Set.<Long>of() : settle(transitions);
+        log.info("FlushVotesOperation.process.out transitions = {}, failed = {}", transitions, failed);
+        return failed;
+    }
+
+    // thresholds reached here are settled by the catch-up sweep units
+    public void reconcile() {
+        log.info("FlushVotesOperation.reconcile.in");
+        var result = approvalService.recomputeAllCounters();
+        log.info("FlushVotesOperation.reconcile.out result = {}", result);
+    }
+
+    // one poisoned task only rolls back its own transaction, the others are settled one by one
+    private Set<Long> settle(List<Transition> transitions) {
+        try {
+            settleChunkOperation.transition(transitions);
+            return Set.of();
+        } catch (Exception e) {
+            log.warn("FlushVotesOperation.settle chunk failed, settling tasks one by one", e);
+        }
+        var failed = new HashSet<Long>();
+        for (var transition : transitions) {
+            try {
+                settleChunkOperation.transition(List.of(transition));
+            } catch (Exception e) {
+                log.error("FlushVotesOperation.settle.thrown taskId = {}", transition.taskId(), e);
+                failed.add(transition.taskId());
+            }
+        }
+        return failed;
+    }
+
+    private TaskStatus reachedStatus(ApprovalRecord approval) {
+        var status = approval.getStatus();
+        if (status == TaskStatus.WAITING_FOR_APPROVE && approval.getCounter() >= WAITING_FOR_APPROVE_THRESHOLD_COUNT) {
+            return TaskStatus.TO_DO;
+        } else if (status == TaskStatus.RESOLVED && approval.getCounter() >= RESOLVED_THRESHOLD_COUNT) {
+            return TaskStatus.COMPLETED;
+        }
+        return null;
+    }
+
+    public static record Transition(Long taskId, TaskStatus from, TaskStatus to) {}
+}
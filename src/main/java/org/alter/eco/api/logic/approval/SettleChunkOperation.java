@@ -0,0 +1,68 @@
+package org.alter.eco.api.logic.approval;
+
+import lombok.RequiredArgsConstructor;
+import org.alter.eco.api.jooq.enums.TaskStatus;
+import org.alter.eco.api.jooq.tables.records.ApprovalRecord;
+import org.alter.eco.api.logic.approval.ApproveScheduledOperation.FindByTasksForTrashingRequest;
+import org.alter.eco.api.logic.approval.ApproveScheduledOperation.FindByTimeShiftAndCounterRequest;
+import org.alter.eco.api.logic.approval.ApproveScheduledOperation.SweepScope;
+import org.alter.eco.api.logic.approval.FlushVotesOperation.Transition;
+import org.alter.eco.api.service.db.ApprovalService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static java.util.stream.Collectors.toMap;
+
+@Component
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+public class SettleChunkOperation {
+
+    private static final Logger log = LoggerFactory.getLogger(SettleChunkOperation.class);
+
+    private final ApprovalService approvalService;
+    private final SettleTasksOperation settleTasksOperation;
+
+    public int complete(FindByTimeShiftAndCounterRequest request, SweepScope scope, int chunkSize) {
+        log.info("SettleChunkOperation.complete.in request = {}, scope = {}, chunkSize = {}", request, scope, chunkSize);
+        var result = settle(approvalService.findTasksForApproving(request, scope, chunkSize), TaskStatus.COMPLETED);
+        log.info("SettleChunkOperation.complete.out result = {}", result);
+        return result;
+    }
+
+    public int approve(FindByTimeShiftAndCounterRequest request, SweepScope scope, int chunkSize) {
+        log.info("SettleChunkOperation.approve.in request = {}, scope = {}, chunkSize = {}", request, scope, chunkSize);
+        var result = settle(approvalService.findTasksForApproving(request, scope, chunkSize), TaskStatus.TO_DO);
+        log.info("SettleChunkOperation.approve.out result = {}", result);
+        return result;
+    }
+
+    public int trash(FindByTasksForTrashingRequest request, SweepScope scope, int chunkSize) {
+        log.info("SettleChunkOperation.trash.in request = {}, scope = {}, chunkSize = {}", request, scope, chunkSize);
+        var result = settle(approvalService.findTasksForTrashing(request, scope, chunkSize), TaskStatus.TRASHED);
+        log.info("SettleChunkOperation.trash.out result = {}", result);
+        return result;
+    }
+
+    // the sweep may have settled a task in the meantime, then there is nothing to claim
+    public int transition(List<Transition> transitions) {
+        log.info("SettleChunkOperation.transition.in transitions = {}", transitions);
+        var statuses = new HashMap<Long, TaskStatus>();
+        transitions.forEach(t -> approvalService.claim(t.taskId(), t.from())
+            .ifPresent(a -> statuses.put(t.taskId(), t.to())));
+        settleTasksOperation.process(statuses);
+        log.info("SettleChunkOperation.transition.out result = {}", statuses.size());
+        return statuses.size();
+    }
+
+    private int settle(List<ApprovalRecord> claimed, TaskStatus status) {
+        settleTasksOperation.process(claimed.stream().collect(toMap(ApprovalRecord::getTaskId, a -> status)));
+        return claimed.size();
+    }
+}
@@ -0,0 +1,92 @@
+package org.alter.eco.api.logic.approval;
+
+import lombok.RequiredArgsConstructor;
+import org.alter.eco.api.jooq.enums.TaskStatus;
+import org.alter.eco.api.jooq.enums.VoteType;
+import org.alter.eco.api.jooq.tables.records.TaskRecord;
+import org.alter.eco.api.logic.reward.AccrualByClientIdOperation;
+import org.alter.eco.api.logic.reward.AccrualByClientIdOperation.AccrualRequest;
+import org.alter.eco.api.service.db.ApprovalService;
+import org.alter.eco.api.service.db.TaskService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+@Component
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.REQUIRED)
+public class SettleTasksOperation {
+
+    private static final Logger log = LoggerFactory.getLogger(SettleTasksOperation.class);
+
+    @Value("${operation.approval.reward.approve-attendee}")
+    private Long APPROVE_REWARD;
+    @Value("${operation.approval.reward.complete-attendee}")
+    private Long COMPLETE_REWARD;
+    @Value("${operation.approval.reward.trash-attendee}")
+    private Long TRASH_REWARD;
+    @Value("${operation.approval.reward.creator}")
+    private Long CREATOR_REWARD;
+
+    private final TaskService taskService;
+    private final ApprovalService approvalService;
+
+    private final AccrualByClientIdOperation accrualByClientIdOperation;
+
+    // approvals of the given tasks must be already claimed (deleted) by the caller
+    public void process(Map<Long, TaskStatus> statuses) {
+        log.info("SettleTasksOperation.process.in statuses = {}", statuses);
+        if (!statuses.isEmpty()) {
+            internalProcess(statuses);
+        }
+        log.info("SettleTasksOperation.process.out");
+    }
+
+    private void internalProcess(Map<Long, TaskStatus> statuses) {
+        var tasks = taskService.updateStatuses(statuses);
+        var settled = tasks.stream().collect(toMap(TaskRecord::getId, TaskRecord::getStatus));
+        var votes = approvalService.deleteVotes(statuses.keySet());
+        var accruals = new ArrayList<AccrualRequest>();
+        votes.forEach(v -> voterReward(settled.get(v.getTaskId()), v.getType())
+            .ifPresent(amount -> accruals.add(AccrualRequest.system(v.getClientId(), amount,
+                rewardKey(v.getTaskId(), settled.get(v.getTaskId()), "voter:" + v.getClientId())))));
+        tasks.stream()
+            .filter(t -> t.getStatus() == TaskStatus.COMPLETED)
+            .forEach(t -> {
+                accruals.add(AccrualRequest.system(t.getAssignee(), t.getReward(), rewardKey(t.getId(), t.getStatus(), "assignee")));
+                accruals.add(AccrualRequest.system(t.getCreatedBy(), CREATOR_REWARD, rewardKey(t.getId(), t.getStatus(), "creator")));
+            });
+        accrualByClientIdOperation.processAll(accruals.stream()
+            .filter(a -> nonNull(a.userUuid()) && nonNull(a.amount()))
+            .collect(toList()));
+        log.info("SettleTasksOperation.internalProcess settled = {}, votes = {}, accruals = {}",
+            tasks.size(), votes.size(), accruals.size());
+    }
+
+    // a task reaches every status once, so a reward is identified by the task, the status and the role
+    private static String rewardKey(Long taskId, TaskStatus status, String role) {
+        return "task:" + taskId + ":" + status + ":" + role;
+    }
+
+    private Optional<Long> voterReward(TaskStatus status, VoteType type) {
+        if (status == TaskStatus.COMPLETED && type == VoteType.APPROVE) {
+            return Optional.of(COMPLETE_REWARD);
+        } else if (status == TaskStatus.TO_DO && type == VoteType.APPROVE) {
+            return Optional.of(APPROVE_REWARD);
+        } else if (status == TaskStatus.TRASHED && type == VoteType.REJECT) {
+            return Optional.of(TRASH_REWARD);
+        }
+        return Optional.empty();
+    }
+}
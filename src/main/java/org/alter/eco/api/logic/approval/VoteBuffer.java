@@ -0,0 +1,99 @@
+package org.alter.eco.api.logic.approval;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Collects the tasks voted for since the last flush. Counters are recomputed from the vote table,
+// so a mark lost on restart or owned by another instance only delays the counter, it never skews it.
+@Component
+public class VoteBuffer {
+
+    private final static Logger log = LoggerFactory.getLogger(VoteBuffer.class);
+
+    private final FlushVotesOperation flushVotesOperation;
+    private final Long flushIntervalMillis;
+    private final Integer maxAttempts;
+
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Integer> attempts = new ConcurrentHashMap<>();
+
+    public VoteBuffer(FlushVotesOperation flushVotesOperation,
+                      @Value("${operation.approval.vote-flush-ms}") Long flushIntervalMillis,
+                      @Value("${operation.approval.vote-flush-max-attempts}") Integer maxAttempts) {
+        this.flushVotesOperation = flushVotesOperation;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Long flushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    // the vote is invisible to the flush until the calling transaction commits
+    public void markAfterCommit(Long taskId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    dirty.add(taskId);
+                }
+            });
+        } else {
+            dirty.add(taskId);
+        }
+    }
+
+    public void flush() {
+        var taskIds = new ArrayList<Long>();
+        for (var it = dirty.iterator(); it.hasNext(); ) {
+            taskIds.add(it.next());
+            it.remove();
+        }
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        var start = System.currentTimeMillis();
+        try {
+            var failed = flushVotesOperation.process(taskIds);
+            taskIds.stream().filter(id -> !failed.contains(id)).forEach(attempts::remove);
+            failed.forEach(this::retry);
+            log.info("VoteBuffer.flush.out tasks = {}, failed = {}, duration = {}ms",
+                taskIds.size(), failed.size(), System.currentTimeMillis() - start);
+        } catch (Throwable e) {
+            // counters were not recomputed, no single task is to blame
+            dirty.addAll(taskIds);
+            log.error("VoteBuffer.flush.thrown tasks are kept for the next flush", e);
+        }
+    }
+
+    // a task that keeps failing to settle is dropped, its counter is already stored and the catch-up sweep settles it
+    private void retry(Long taskId) {
+        var attempt = attempts.merge(taskId, 1, Integer::sum);
+        if (attempt >= maxAttempts) {
+            attempts.remove(taskId);
+            log.error("VoteBuffer.retry taskId = {} dropped after {} attempts", taskId, attempt);
+        } else {
+            dirty.add(taskId);
+        }
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void reconcile() {
+        try {
+            flushVotesOperation.reconcile();
+        } catch (Exception e) {
+            log.error("VoteBuffer.reconcile.thrown", e);
+        }
+    }
+}
@@ -3,7 +3,7 @@ package org.alter.eco.api.logic.approval;
 import lombok.RequiredArgsConstructor;
 import org.alter.eco.api.exception.HttpCodeException;
 import org.alter.eco.api.jooq.enums.VoteType;
-import org.alter.eco.api.jooq.tables.records.VoteRecord;
+import org.alter.eco.api.model.VoteTally;
 import org.alter.eco.api.service.db.ApprovalService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,11 +23,13 @@ public class VoteForTaskOperation {
     private final static Logger log = LoggerFactory.getLogger(VoteForTaskOperation.class);
 
     private final ApprovalService approvalService;
+    private final VoteBuffer voteBuffer;
 
-    public void process(VoteForTaskRequest request) {
+    public VoteTally process(VoteForTaskRequest request) {
         log.info("VoteForTaskOperation.process.in id = {}", request);
+        VoteTally result;
         try {
-            internalProcess(request);
+            result = internalProcess(request);
         } catch (HttpCodeException e) {
             log.error("VoteForTaskOperation.process.thrown", e);
             throw e;
@@ -35,24 +37,18 @@ public class VoteForTaskOperation {
             log.error("VoteForTaskOperation.process.thrown", e);
             throw INTERNAL_ERROR.exception(e);
         }
-        log.info("VoteForTaskOperation.process.out");
+        log.info("VoteForTaskOperation.process.out result = {}", result);
+        return result;
     }
 
-    private void internalProcess(VoteForTaskRequest request) {
-        approvalService.findByTaskId(request.taskId)
+    private VoteTally internalProcess(VoteForTaskRequest request) {
+        var tally = approvalService.upsertUserVote(request)
             .orElseThrow(() -> ENTRY_NOT_FOUND_BY_TASK_ID.exception(format("Entry with task id = %s not found", request.taskId)));
-        approvalService.insertUserVote(request);
-        if (request.type.equals(VoteType.APPROVE)) {
-            approvalService.insertTaskVotePlus(request);
-        } else {
-            approvalService.insertTaskVoteMinus(request);
-        }
+        // the approval row stays off the vote path, its counter is recomputed by the next flush
+        voteBuffer.markAfterCommit(request.taskId);
+        return tally;
     }
 
     public static record VoteForTaskRequest(String clientId, Long taskId, VoteType type) {
-
-        public VoteRecord voteRecord() {
-            return new VoteRecord(clientId, taskId, type);
-        }
     }
 }
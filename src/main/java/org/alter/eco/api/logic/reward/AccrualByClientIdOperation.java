@@ -3,7 +3,7 @@ package org.alter.eco.api.logic.reward;
 import lombok.RequiredArgsConstructor;
 import org.alter.eco.api.exception.HttpCodeException;
 import org.alter.eco.api.jooq.enums.AccountStatus;
-import org.alter.eco.api.jooq.tables.records.EventRecord;
+import org.alter.eco.api.service.cache.AccountCache;
 import org.alter.eco.api.service.db.RewardService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,7 +11,12 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Set;
+
 import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.alter.eco.api.exception.ApplicationError.INTERNAL_ERROR;
 import static org.alter.eco.api.exception.ApplicationError.WRONG_STATUS;
 
@@ -22,7 +27,10 @@ public class AccrualByClientIdOperation {
 
     private final static Logger log = LoggerFactory.getLogger(AccrualByClientIdOperation.class);
 
+    private static final String ACCRUAL = "AccuralAccount";
+
     private final RewardService rewardService;
+    private final AccountCache accountCache;
 
     public void process(AccrualRequest request) {
         log.info("AccrualByClientIdOperation.process.in id = {}", request);
@@ -39,29 +47,40 @@ public class AccrualByClientIdOperation {
     }
 
     private void internalProcess(AccrualRequest request) {
+        rewardService.createAccounts(List.of(request.userUuid()));
         var account = rewardService.findByUser(request.userUuid());
         account.ifPresent(a -> {
             if (!a.getStatus().equals(AccountStatus.ACTIVE)) {
                 throw WRONG_STATUS.exception(format("Account status is %s. Cannot accrual this account", a.getStatus()));
             }
         });
-        var updatedAccount = rewardService.accrualAccount(request);
-        sendEvent(updatedAccount.getUserId(), request.amount(), request.initiator());
+        rewardService.appendCredits(List.of(request), ACCRUAL);
+        accountCache.invalidateAfterCommit(List.of(request.userUuid()));
     }
 
-    private void sendEvent(String userId, Long value, String initiator) {
-        var event = new EventRecord();
-        event.setUserId(userId);
-        event.setValue(value);
-        event.setName("AccuralAccount");
-        event.setInitiator(initiator);
-        rewardService.insertEvent(event);
+    public void processAll(List<AccrualRequest> requests) {
+        log.info("AccrualByClientIdOperation.processAll.in requests = {}", requests.size());
+        internalProcessAll(requests);
+        log.info("AccrualByClientIdOperation.processAll.out");
+    }
+
+    // accounts that are not ACTIVE and credits already made are skipped instead of failing the whole batch
+    private void internalProcessAll(List<AccrualRequest> requests) {
+        var userUuids = requests.stream().map(AccrualRequest::userUuid).collect(toSet());
+        rewardService.createAccounts(userUuids);
+        var credited = Set.copyOf(rewardService.appendCredits(requests, ACCRUAL));
+        accountCache.invalidateAfterCommit(credited);
+        if (credited.size() < userUuids.size()) {
+            log.warn("AccrualByClientIdOperation.processAll skipped accounts = {}",
+                userUuids.stream().filter(u -> !credited.contains(u)).collect(toList()));
+        }
     }
 
-    public static record AccrualRequest(String userUuid, Long amount, String initiator) {
+    // a credit with an already used idempotency key is not appended again
+    public static record AccrualRequest(String userUuid, Long amount, String initiator, String idempotencyKey) {
 
-        public static AccrualRequest system(String userUuid, Long amount) {
-            return new AccrualRequest(userUuid, amount, "system");
+        public static AccrualRequest system(String userUuid, Long amount, String idempotencyKey) {
+            return new AccrualRequest(userUuid, amount, "system", idempotencyKey);
         }
     }
 }
@@ -2,15 +2,13 @@ package org.alter.eco.api.logic.reward;
 
 import lombok.RequiredArgsConstructor;
 import org.alter.eco.api.exception.HttpCodeException;
-import org.alter.eco.api.jooq.tables.records.AccountRecord;
+import org.alter.eco.api.model.Account;
+import org.alter.eco.api.service.cache.AccountCache;
 import org.alter.eco.api.service.db.RewardService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
 
-import static java.util.Objects.requireNonNullElse;
-import static org.alter.eco.api.exception.ApplicationError.ACCOUNT_NOT_FOUND_BY_ID;
 import static org.alter.eco.api.exception.ApplicationError.INTERNAL_ERROR;
 
 @Component
@@ -20,11 +18,12 @@ public class GetAccountByIdOperation {
     private final static Logger log = LoggerFactory.getLogger(GetAccountByIdOperation.class);
 
     private final RewardService rewardService;
+    private final AccountCache accountCache;
 
-    public AccountRecord process() {
-        log.info("GetAccountByIdOperation.process.in");
+    public Account process(String userUuid) {
+        log.info("GetAccountByIdOperation.process.in userUuid = {}", userUuid);
         try {
-            var result = internalProcess();
+            var result = internalProcess(userUuid);
             log.info("GetAccountByIdOperation.process.out");
             return result;
         } catch (HttpCodeException e){
@@ -36,9 +35,15 @@ public class GetAccountByIdOperation {
         }
     }
 
-    private AccountRecord internalProcess() {
-        var userUuid = requireNonNullElse(MDC.get("user"), "default");
-        return rewardService.findByUser(userUuid)
-            .orElseThrow(() -> ACCOUNT_NOT_FOUND_BY_ID.exception("No such account exist for client id = " + userUuid));
+    // a read never creates the account, a user without one gets an empty account
+    private Account internalProcess(String userUuid) {
+        var result = accountCache.get(userUuid, u -> rewardService.findByUser(u)
+            .map(Account::fromRecord)
+            .orElseGet(() -> Account.empty(u)));
+        if (log.isDebugEnabled()) {
+            var stats = accountCache.stats();
+            log.debug("GetAccountByIdOperation.internalProcess hits = {}, misses = {}", stats.hitCount(), stats.missCount());
+        }
+        return result;
     }
 }
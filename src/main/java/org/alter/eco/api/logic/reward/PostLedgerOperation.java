@@ -0,0 +1,27 @@
+package org.alter.eco.api.logic.reward;
+
+import lombok.RequiredArgsConstructor;
+import org.alter.eco.api.service.db.RewardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+public class PostLedgerOperation {
+
+    private final static Logger log = LoggerFactory.getLogger(PostLedgerOperation.class);
+
+    private final RewardService rewardService;
+
+    // every batch commits on its own, so a long backlog never holds account rows for long
+    public int process(int limit, int shard, int shards) {
+        log.info("PostLedgerOperation.process.in limit = {}, shard = {}/{}", limit, shard, shards);
+        var result = rewardService.postPending(limit, shard, shards);
+        log.info("PostLedgerOperation.process.out result = {}", result);
+        return result;
+    }
+}
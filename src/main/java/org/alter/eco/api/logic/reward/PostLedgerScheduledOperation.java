@@ -0,0 +1,55 @@
+package org.alter.eco.api.logic.reward;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class PostLedgerScheduledOperation {
+
+    private static final Logger log = LoggerFactory.getLogger(PostLedgerScheduledOperation.class);
+
+    @Value("${operation.reward.post-interval-ms}")
+    private Long POST_INTERVAL_MS;
+    @Value("${operation.reward.post-batch-size}")
+    private Integer POST_BATCH_SIZE;
+    @Value("${operation.reward.post-shards}")
+    private Integer POST_SHARDS;
+
+    private final PostLedgerOperation postLedgerOperation;
+
+    public Long intervalMillis() {
+        return POST_INTERVAL_MS;
+    }
+
+    // every shard holds a pooled connection while it folds, next to the sweep partitions, the vote flush
+    // and requests; keep shards at most the pool size minus the other background units
+    public int shards() {
+        return POST_SHARDS;
+    }
+
+    // folds pending credits of one shard until a short batch shows its backlog is drained; shards run in parallel
+    // and fail separately, exceptions never leave the unit, otherwise the executor would cancel its schedule
+    public Runnable unit(int shard) {
+        return () -> {
+            var started = System.nanoTime();
+            try {
+                var posted = 0;
+                int batch;
+                do {
+                    batch = postLedgerOperation.process(POST_BATCH_SIZE, shard, POST_SHARDS);
+                    posted += batch;
+                } while (batch == POST_BATCH_SIZE);
+                if (posted > 0) {
+                    log.info("PostLedgerScheduledOperation.run.out shard = {}, posted = {}, duration = {} ms",
+                        shard, posted, (System.nanoTime() - started) / 1_000_000);
+                }
+            } catch (Exception e) {
+                log.error("PostLedgerScheduledOperation.run.thrown shard = {}", shard, e);
+            }
+        };
+    }
+}
@@ -3,11 +3,14 @@ package org.alter.eco.api.logic.reward;
 import lombok.RequiredArgsConstructor;
 import org.alter.eco.api.exception.HttpCodeException;
 import org.alter.eco.api.jooq.enums.AccountStatus;
+import org.alter.eco.api.service.cache.AccountCache;
 import org.alter.eco.api.service.db.RewardService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 import static org.alter.eco.api.exception.ApplicationError.INTERNAL_ERROR;
 
 @Component
@@ -17,6 +20,7 @@ public class UpdateAccountStatusOperation {
     private final static Logger log = LoggerFactory.getLogger(UpdateAccountStatusOperation.class);
 
     public final RewardService rewardService;
+    private final AccountCache accountCache;
 
     public void process(UpdateStatusRequest request) {
         log.info("UpdateAccountStatusOperation.process.in id = {}", request);
@@ -34,6 +38,7 @@ public class UpdateAccountStatusOperation {
 
     private void internalProcess(UpdateStatusRequest request) {
         rewardService.updateStatus(request);
+        accountCache.invalidateAfterCommit(List.of(request.userUuid()));
     }
 
     public static record UpdateStatusRequest(String userUuid, AccountStatus status) {}
@@ -2,9 +2,11 @@ package org.alter.eco.api.logic.reward;
 
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
+import org.alter.eco.api.exception.ApplicationError.ApplicationErrorException;
 import org.alter.eco.api.exception.HttpCodeException;
 import org.alter.eco.api.jooq.enums.AccountStatus;
-import org.alter.eco.api.jooq.tables.records.EventRecord;
+import org.alter.eco.api.jooq.tables.records.AccountRecord;
+import org.alter.eco.api.service.cache.AccountCache;
 import org.alter.eco.api.service.db.RewardService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +14,9 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Optional;
+
 import static java.lang.String.format;
 import static org.alter.eco.api.exception.ApplicationError.INTERNAL_ERROR;
 import static org.alter.eco.api.exception.ApplicationError.NOT_ENOUGH_MONEY;
@@ -24,7 +29,10 @@ public class WriteoffByUserIdOperation {
 
     private final static Logger log = LoggerFactory.getLogger(WriteoffByUserIdOperation.class);
 
+    private static final String WRITEOFF = "WriteoffAccount";
+
     private final RewardService rewardService;
+    private final AccountCache accountCache;
 
     public void process(WriteoffRequest request) {
         log.info("WriteoffByClientIdOperation.process.in id = {}", request);
@@ -41,25 +49,25 @@ public class WriteoffByUserIdOperation {
     }
 
     private void internalProcess(WriteoffRequest request) {
-        rewardService.findByUser(request.userUuid()).ifPresent(a -> {
-            if (a.getAmount() < request.amount) {
-                throw NOT_ENOUGH_MONEY.exception(format("Cannot write off %s. Not enough money", request.amount));
-            } else if (!a.getStatus().equals(AccountStatus.ACTIVE)) {
-                throw WRONG_STATUS.exception(format("Account status is %s. Cannot write off from this account", a.getStatus()));
-            }
-            var updatedAccount = rewardService.writeoffAccount(request);
-
-            sendEvent(updatedAccount.getUserId(), request.amount(), request.initiator());
-        });
+        // pending credits count towards the balance but not towards the posted amount the guard checks
+        var remaining = rewardService.writeoffAccount(request, WRITEOFF)
+            .or(() -> rewardService.postPending(request.userUuid()) > 0
+                      ? rewardService.writeoffAccount(request, WRITEOFF)
+                      : Optional.empty());
+        if (remaining.isEmpty()) {
+            throw rejection(request);
+        }
+        accountCache.invalidateAfterCommit(List.of(request.userUuid()));
     }
 
-    private void sendEvent(String userId, Long value, String initiator) {
-        var event = new EventRecord();
-        event.setUserId(userId);
-        event.setValue(value);
-        event.setName("WriteoffAccount");
-        event.setInitiator(initiator);
-        rewardService.insertEvent(event);
+    private ApplicationErrorException rejection(WriteoffRequest request) {
+        var status = rewardService.findByUser(request.userUuid())
+            .map(AccountRecord::getStatus)
+            .orElse(AccountStatus.ACTIVE);
+        if (!status.equals(AccountStatus.ACTIVE)) {
+            return WRONG_STATUS.exception(format("Account status is %s. Cannot write off from this account", status));
+        }
+        return NOT_ENOUGH_MONEY.exception(format("Cannot write off %s. Not enough money", request.amount));
     }
 
     @ToString(exclude = "amount")
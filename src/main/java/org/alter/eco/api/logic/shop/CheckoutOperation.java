@@ -0,0 +1,121 @@
+package org.alter.eco.api.logic.shop;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.RequiredArgsConstructor;
+import org.alter.eco.api.exception.HttpCodeException;
+import org.alter.eco.api.jooq.tables.records.ItemRecord;
+import org.alter.eco.api.logic.reward.WriteoffByUserIdOperation;
+import org.alter.eco.api.logic.reward.WriteoffByUserIdOperation.WriteoffRequest;
+import org.alter.eco.api.service.cache.HotStockCounter;
+import org.alter.eco.api.service.db.ShopService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.util.Objects.isNull;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.alter.eco.api.exception.ApplicationError.INTERNAL_ERROR;
+import static org.alter.eco.api.exception.ApplicationError.NOT_ENOUGH_AMOUNT;
+import static org.alter.eco.api.exception.ApplicationError.NOT_FOUND_BY_ID;
+import static org.alter.eco.api.exception.ValidationError.INVALID_CHECKOUT_REQUEST;
+
+@Component
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.REQUIRED)
+public class CheckoutOperation {
+
+    private final static Logger log = LoggerFactory.getLogger(CheckoutOperation.class);
+
+    private final ShopService shopService;
+    private final WriteoffByUserIdOperation writeoffByUserIdOperation;
+    private final HotStockCounter hotStockCounter;
+
+    public Long process(CheckoutRequest request) {
+        log.info("CheckoutOperation.process.in request = {}", request);
+        Long result;
+        try {
+            result = internalProcess(request);
+        } catch (HttpCodeException e) {
+            log.error("CheckoutOperation.process.thrown", e);
+            throw e;
+        } catch (Exception e) {
+            log.error("CheckoutOperation.process.thrown", e);
+            throw INTERNAL_ERROR.exception(e);
+        }
+        log.info("CheckoutOperation.process.out result = {}", result);
+        return result;
+    }
+
+    // a constant number of statements whatever the basket size: lock and price, reserve, order, write off
+    private Long internalProcess(CheckoutRequest request) {
+        var quantities = request.quantities();
+        var items = shopService.lockItems(quantities.keySet()).stream()
+            .collect(toMap(ItemRecord::getId, i -> i));
+        var missing = quantities.keySet().stream().filter(id -> !items.containsKey(id)).collect(toList());
+        if (!missing.isEmpty()) {
+            throw NOT_FOUND_BY_ID.exception("No such items exist with ids = " + missing);
+        }
+        var lacking = quantities.entrySet().stream()
+            .filter(e -> items.get(e.getKey()).getAmount() < e.getValue())
+            .map(Map.Entry::getKey)
+            .collect(toList());
+        if (!lacking.isEmpty()) {
+            throw NOT_ENOUGH_AMOUNT.exception("Not enough amount items for purchase, item ids = " + lacking);
+        }
+        var total = total(items, quantities);
+        // the rows are locked, the guard in the update can only fail if locking is broken
+        if (shopService.reserveItems(quantities).size() != quantities.size()) {
+            throw NOT_ENOUGH_AMOUNT.exception("Not enough amount items for purchase");
+        }
+        shopService.insertOrders(request.userUuid(), quantities);
+        // hot items sold here are taken out of the in-memory stock, it is reloaded from the database
+        quantities.keySet().forEach(hotStockCounter::invalidateAfterCommit);
+        writeoffByUserIdOperation.process(WriteoffRequest.system(request.userUuid(), total));
+        return total;
+    }
+
+    private Long total(Map<Long, ItemRecord> items, Map<Long, Long> quantities) {
+        try {
+            return quantities.entrySet().stream()
+                .mapToLong(e -> Math.multiplyExact(items.get(e.getKey()).getPrice(), e.getValue()))
+                .reduce(0L, Math::addExact);
+        } catch (ArithmeticException e) {
+            throw INVALID_CHECKOUT_REQUEST.exception("Basket total is too large");
+        }
+    }
+
+    public static record CheckoutRequest(String userUuid, List<CheckoutLine> lines) {
+
+        // lines of the same item are merged, the basket is ordered by item id
+        public Map<Long, Long> quantities() {
+            if (isNull(lines) || lines.isEmpty()) {
+                throw INVALID_CHECKOUT_REQUEST.exception("Basket is empty");
+            }
+            var result = new TreeMap<Long, Long>();
+            for (var line : lines) {
+                if (isNull(line.itemId()) || isNull(line.quantity()) || line.quantity() <= 0) {
+                    throw INVALID_CHECKOUT_REQUEST.exception("Every line needs an item id and a positive quantity");
+                }
+                result.merge(line.itemId(), line.quantity(), Long::sum);
+            }
+            return result;
+        }
+    }
+
+    public static record CheckoutLine(
+        @JsonProperty("itemId") Long itemId,
+        @JsonProperty("quantity") Long quantity) {
+
+        @JsonCreator
+        public CheckoutLine {
+        }
+    }
+}
@@ -5,6 +5,7 @@ import lombok.ToString;
 import org.alter.eco.api.exception.HttpCodeException;
 import org.alter.eco.api.jooq.tables.records.ItemRecord;
 import org.alter.eco.api.logic.shop.CreateItemOperation.ItemAttachPhotosRequest;
+import org.alter.eco.api.service.cache.HotStockCounter;
 import org.alter.eco.api.service.db.ItemAttachmentService;
 import org.alter.eco.api.service.db.ShopService;
 import org.slf4j.Logger;
@@ -27,6 +28,7 @@ public class EditItemOperation {
 
     private final ShopService shopService;
     private final ItemAttachmentService attachmentService;
+    private final HotStockCounter hotStockCounter;
 
     public void process(EditItemRequest request) {
         log.info("EditItemOperation.process.in request = {}", request);
@@ -52,6 +54,7 @@ public class EditItemOperation {
             .collect(toList());
 
         shopService.update(request.newItem);
+        hotStockCounter.invalidateAfterCommit(id);
         attachmentService.attach(attachmentRecords);
     }
 
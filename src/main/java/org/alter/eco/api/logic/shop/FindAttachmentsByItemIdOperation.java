@@ -1,7 +1,7 @@
 package org.alter.eco.api.logic.shop;
 
 import lombok.RequiredArgsConstructor;
-import org.alter.eco.api.jooq.tables.records.ItemAttachmentRecord;
+import org.alter.eco.api.model.AttachmentContent;
 import org.alter.eco.api.service.db.ItemAttachmentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,6 +9,8 @@ import org.springframework.stereotype.Component;
 
 import java.util.List;
 
+import static java.util.stream.Collectors.toList;
+
 @Component
 @RequiredArgsConstructor
 public class FindAttachmentsByItemIdOperation {
@@ -17,18 +19,22 @@ public class FindAttachmentsByItemIdOperation {
 
     private final ItemAttachmentService attachmentService;
 
-    public List<ItemAttachmentRecord> process(Long taskId) {
+    public List<AttachmentContent> process(Long taskId) {
         log.info("FindAttachmentsByItemIdOperation.process.in taskId = {}", taskId);
         var result = internalProcess(taskId);
         log.info("FindAttachmentsByItemIdOperation.process.out");
         return result;
     }
 
-    private List<ItemAttachmentRecord> internalProcess(Long itemId) {
+    private List<AttachmentContent> internalProcess(Long itemId) {
         var attachments = attachmentService.findIdsByItemId(itemId);
         if (attachments.isEmpty()) {
             log.warn("No attachments found for item id = " + itemId);
         }
-        return attachments;
+        return attachments.stream()
+            .map(a -> AttachmentContent.of(
+                a.getId(), a.getType(), a.getLength(), a.getContentKey(), attachmentService.content(a)
+            ))
+            .collect(toList());
     }
 }
@@ -1,7 +1,7 @@
 package org.alter.eco.api.logic.shop;
 
 import lombok.RequiredArgsConstructor;
-import org.alter.eco.api.jooq.tables.records.ItemAttachmentRecord;
+import org.alter.eco.api.model.AttachmentContent;
 import org.alter.eco.api.service.db.ItemAttachmentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,15 +17,22 @@ public class FindItemAttachmentByIdOperation {
 
     private final ItemAttachmentService attachmentService;
 
-    public ItemAttachmentRecord process(Long id) {
+    public AttachmentContent process(Long id) {
         log.info("FindItemAttachmentByIdOperation.process.in id = {}", id);
         var result = internalProcess(id);
         log.info("FindItemAttachmentByIdOperation.process.out");
         return result;
     }
 
-    private ItemAttachmentRecord internalProcess(Long id) {
-        return attachmentService.findById(id)
+    private AttachmentContent internalProcess(Long id) {
+        var attachment = attachmentService.findById(id)
             .orElseThrow(() -> ATTACHMENTS_NOT_FOUND.exception("No attachments found with id = " + id));
+        return AttachmentContent.of(
+            attachment.getId(),
+            attachment.getType(),
+            attachment.getLength(),
+            attachment.getContentKey(),
+            attachmentService.content(attachment)
+        );
     }
 }
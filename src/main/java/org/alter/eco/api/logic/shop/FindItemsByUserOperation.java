@@ -5,12 +5,10 @@ import org.alter.eco.api.model.Item;
 import org.alter.eco.api.service.db.ShopService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 
-import static java.util.Objects.requireNonNullElse;
 import static java.util.stream.Collectors.toList;
 
 @Component
@@ -21,15 +19,14 @@ public class FindItemsByUserOperation {
 
     private final ShopService shopService;
 
-    public List<Item> process() {
-        log.info("FindItemsByUserOperation.process.in");
-        var result = internalProcess();
+    public List<Item> process(String userUuid) {
+        log.info("FindItemsByUserOperation.process.in userUuid = {}", userUuid);
+        var result = internalProcess(userUuid);
         log.info("FindItemsByUserOperation.process.out");
         return result;
     }
 
-    private List<Item> internalProcess() {
-        var userUuid = requireNonNullElse(MDC.get("user"), "default");
+    private List<Item> internalProcess(String userUuid) {
         return shopService.findByUser(userUuid).stream()
             .map(Item::of)
             .collect(toList());
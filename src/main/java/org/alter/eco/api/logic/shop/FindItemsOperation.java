@@ -6,18 +6,20 @@ import lombok.RequiredArgsConstructor;
 import org.alter.eco.api.jooq.tables.Item;
 import org.alter.eco.api.jooq.tables.Task;
 import org.alter.eco.api.jooq.tables.records.ItemRecord;
+import org.alter.eco.api.service.db.FullTextSearch;
 import org.alter.eco.api.service.db.ItemAttachmentService;
 import org.alter.eco.api.service.db.ShopService;
 import org.jooq.Condition;
 import org.jooq.SelectForUpdateStep;
 import org.jooq.SelectWhereStep;
+import org.jooq.SortField;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import static java.lang.String.format;
 import static java.util.Objects.nonNull;
 import static java.util.Objects.requireNonNullElse;
 import static java.util.stream.Collectors.toList;
@@ -60,7 +62,7 @@ public class FindItemsOperation {
         public SelectForUpdateStep<ItemRecord> withCondition(SelectWhereStep<ItemRecord> query) {
             Condition condition = null;
             if (nonNull(searchString)) {
-                condition = Item.ITEM.TITLE.like(format("%s%%", searchString));
+                condition = FullTextSearch.matches(Item.ITEM.SEARCH_VECTOR, searchString);
             }
             if (nonNull(createdBy)) {
                 condition = condition == null ?
@@ -72,7 +74,14 @@ public class FindItemsOperation {
                 query.where(condition);
             }
 
+            var orderBy = new ArrayList<SortField<?>>();
+            if (nonNull(searchString)) {
+                orderBy.add(FullTextSearch.rank(Item.ITEM.SEARCH_VECTOR, searchString).desc());
+            }
+            orderBy.add(Item.ITEM.ID.asc());
+
             return query
+                .orderBy(orderBy)
                 .limit(requireNonNullElse(limit, 20L))
                 .offset(requireNonNullElse(offset, 0L));
         }
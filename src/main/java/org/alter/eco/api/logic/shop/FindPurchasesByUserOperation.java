@@ -0,0 +1,73 @@
+package org.alter.eco.api.logic.shop;
+
+import lombok.RequiredArgsConstructor;
+import org.alter.eco.api.exception.HttpCodeException;
+import org.alter.eco.api.model.Cursor;
+import org.alter.eco.api.model.Page;
+import org.alter.eco.api.model.Purchase;
+import org.alter.eco.api.service.db.ShopService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+import static java.util.Objects.isNull;
+import static org.alter.eco.api.exception.ApplicationError.INTERNAL_ERROR;
+import static org.alter.eco.api.exception.ValidationError.INVALID_CURSOR;
+
+@Component
+@RequiredArgsConstructor
+public class FindPurchasesByUserOperation {
+
+    private final static Logger log = LoggerFactory.getLogger(FindPurchasesByUserOperation.class);
+
+    private final ShopService shopService;
+
+    public Page<Purchase> process(FindPurchasesRequest request) {
+        log.info("FindPurchasesByUserOperation.process.in request = {}", request);
+        Page<Purchase> result;
+        try {
+            result = internalProcess(request);
+        } catch (HttpCodeException e) {
+            log.error("FindPurchasesByUserOperation.process.thrown", e);
+            throw e;
+        } catch (Exception e) {
+            log.error("FindPurchasesByUserOperation.process.thrown", e);
+            throw INTERNAL_ERROR.exception(e);
+        }
+        log.info("FindPurchasesByUserOperation.process.out");
+        return result;
+    }
+
+    private Page<Purchase> internalProcess(FindPurchasesRequest request) {
+        var pageSize = request.pageSize();
+        var purchases = shopService.findPurchases(request.userUuid(), request.after(), pageSize);
+        if (purchases.isEmpty() || purchases.size() < pageSize) {
+            return new Page<>(purchases, null);
+        }
+        var last = purchases.get(purchases.size() - 1);
+        return new Page<>(purchases, Cursor.of(last.created().toString(), last.id().toString()).encode());
+    }
+
+    public static record FindPurchasesRequest(String userUuid, String cursor, Long limit) {
+
+        public long pageSize() {
+            return Page.size(limit);
+        }
+
+        public Cursor after() {
+            if (isNull(cursor)) {
+                return null;
+            }
+            var decoded = Cursor.decode(cursor, 2);
+            try {
+                LocalDateTime.parse(decoded.get(0));
+                Long.valueOf(decoded.get(1));
+            } catch (RuntimeException e) {
+                throw INVALID_CURSOR.exception(e, cursor);
+            }
+            return decoded;
+        }
+    }
+}
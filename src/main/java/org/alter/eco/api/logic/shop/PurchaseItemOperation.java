@@ -4,15 +4,14 @@ import lombok.RequiredArgsConstructor;
 import org.alter.eco.api.exception.HttpCodeException;
 import org.alter.eco.api.logic.reward.WriteoffByUserIdOperation;
 import org.alter.eco.api.logic.reward.WriteoffByUserIdOperation.WriteoffRequest;
+import org.alter.eco.api.service.cache.HotStockCounter;
 import org.alter.eco.api.service.db.ShopService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import static java.util.Objects.requireNonNullElse;
 import static org.alter.eco.api.exception.ApplicationError.INTERNAL_ERROR;
 import static org.alter.eco.api.exception.ApplicationError.NOT_ENOUGH_AMOUNT;
 import static org.alter.eco.api.exception.ApplicationError.NOT_FOUND_BY_ID;
@@ -25,12 +24,13 @@ public class PurchaseItemOperation {
     private final static Logger log = LoggerFactory.getLogger(FindItemsOperation.class);
 
     private final ShopService shopService;
+    private final HotStockCounter hotStockCounter;
     private final WriteoffByUserIdOperation writeoffByUserIdOperation;
 
-    public void process(Long itemId) {
-        log.info("PurchaseItemOperation.process.in itemId = {}", itemId);
+    public void process(PurchaseRequest request) {
+        log.info("PurchaseItemOperation.process.in request = {}", request);
         try {
-            internalProcess(itemId);
+            internalProcess(request);
         }  catch (HttpCodeException e) {
             log.error("PurchaseItemOperation.process.thrown", e);
             throw e;
@@ -41,14 +41,27 @@ public class PurchaseItemOperation {
         log.info("PurchaseItemOperation.process.out");
     }
 
-    private void internalProcess(Long itemId) {
-        var userUuid = requireNonNullElse(MDC.get("user"), "default");
-        var item = shopService.findById(itemId)
-            .orElseThrow(() -> NOT_FOUND_BY_ID.exception("No such item exist with id = " + itemId));
-        if (item.getAmount() == 0) {
+    private void internalProcess(PurchaseRequest request) {
+        var userUuid = request.userUuid();
+        var itemId = request.itemId();
+        if (!hotStockCounter.tryTake(itemId)) {
+            // a configured hot item may have been deleted, the database only tells on this rare path
+            if (shopService.findById(itemId).isEmpty()) {
+                throw NOT_FOUND_BY_ID.exception("No such item exist with id = " + itemId);
+            }
             throw NOT_ENOUGH_AMOUNT.exception("Not enough amount items for purchase");
         }
-        writeoffByUserIdOperation.process(WriteoffRequest.system(userUuid, item.getPrice()));
-        shopService.purchaseItem(userUuid, itemId);
+        // item row first, then the account row: a failed writeoff rolls the reservation back
+        var price = shopService.reserveItem(userUuid, itemId)
+            .orElseThrow(() -> {
+                if (shopService.findById(itemId).isEmpty()) {
+                    return NOT_FOUND_BY_ID.exception("No such item exist with id = " + itemId);
+                }
+                hotStockCounter.soldOut(itemId);
+                return NOT_ENOUGH_AMOUNT.exception("Not enough amount items for purchase");
+            });
+        writeoffByUserIdOperation.process(WriteoffRequest.system(userUuid, price));
     }
+
+    public static record PurchaseRequest(String userUuid, Long itemId) {}
 }
@@ -0,0 +1,33 @@
+package org.alter.eco.api.logic.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.alter.eco.api.service.db.AttachmentService;
+import org.alter.eco.api.service.db.ItemAttachmentService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "attachment.storage.migrate", havingValue = "true")
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+public class MigrateAttachmentContentOperation {
+
+    private final static Logger log = LoggerFactory.getLogger(MigrateAttachmentContentOperation.class);
+
+    private final AttachmentService attachmentService;
+    private final ItemAttachmentService itemAttachmentService;
+
+    // every batch commits on its own and releases the rows it claimed
+    public int process(int batchSize) {
+        log.info("MigrateAttachmentContentOperation.process.in batchSize = {}", batchSize);
+        var attachments = attachmentService.migrateContent(batchSize);
+        var itemAttachments = itemAttachmentService.migrateContent(batchSize);
+        log.info("MigrateAttachmentContentOperation.process.out attachments = {}, itemAttachments = {}",
+            attachments, itemAttachments);
+        return attachments + itemAttachments;
+    }
+}
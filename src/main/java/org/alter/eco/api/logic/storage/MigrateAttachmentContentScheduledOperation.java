@@ -0,0 +1,47 @@
+package org.alter.eco.api.logic.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "attachment.storage.migrate", havingValue = "true")
+public class MigrateAttachmentContentScheduledOperation {
+
+    private static final Logger log = LoggerFactory.getLogger(MigrateAttachmentContentScheduledOperation.class);
+
+    @Value("${attachment.storage.migrate-batch-size}")
+    private Integer BATCH_SIZE;
+    @Value("${attachment.storage.migrate-interval-s}")
+    private Long INTERVAL_SECONDS;
+
+    private final MigrateAttachmentContentOperation migrateAttachmentContentOperation;
+
+    public Long intervalSeconds() {
+        return INTERVAL_SECONDS;
+    }
+
+    // migrates batches until none is left, rows claimed by other instances are skipped;
+    // exceptions never leave the unit, otherwise the executor would cancel its schedule
+    public Runnable unit() {
+        return () -> {
+            var started = System.nanoTime();
+            try {
+                var migrated = 0;
+                for (int batch; (batch = migrateAttachmentContentOperation.process(BATCH_SIZE)) > 0; ) {
+                    migrated += batch;
+                }
+                if (migrated > 0) {
+                    log.info("MigrateAttachmentContentScheduledOperation.run.out migrated = {}, duration = {} ms",
+                        migrated, (System.nanoTime() - started) / 1_000_000);
+                }
+            } catch (Exception e) {
+                log.error("MigrateAttachmentContentScheduledOperation.run.thrown", e);
+            }
+        };
+    }
+}
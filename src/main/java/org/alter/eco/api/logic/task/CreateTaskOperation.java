@@ -13,7 +13,6 @@ import org.alter.eco.api.service.db.AttachmentService;
 import org.alter.eco.api.service.db.TaskService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,7 +20,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 import static java.util.Objects.isNull;
-import static java.util.Objects.requireNonNullElse;
 import static java.util.stream.Collectors.toList;
 import static org.alter.eco.api.exception.ValidationError.INVALID_ATTACH_REQUEST;
 
@@ -35,6 +33,7 @@ public class CreateTaskOperation {
     private final TaskService taskService;
     private final AttachmentService attachmentService;
     private final ApprovalService approvalService;
+    private final GenerateThumbnailsOperation generateThumbnailsOperation;
 
     public Long process(CreateTaskRequest request) {
         log.info("CreateTaskOperation.process.in id = {}", request);
@@ -46,7 +45,7 @@ public class CreateTaskOperation {
     private Long internalProcess(CreateTaskRequest request) {
         var newTask = request.newTask;
         newTask.setStatus(TaskStatus.WAITING_FOR_APPROVE);
-        newTask.setCreatedBy(requireNonNullElse(MDC.get("user"), "default"));
+        newTask.setCreatedBy(request.userUuid);
 
         var taskId = taskService.insert(newTask).getId();
         var attachPhotos = request.attachPhotosRequest.stream()
@@ -55,6 +54,9 @@ public class CreateTaskOperation {
             .map(AttachPhotosRequest::asRecord)
             .collect(toList());
         attachmentService.attach(attachPhotos);
+        if (!attachPhotos.isEmpty()) {
+            generateThumbnailsOperation.processAfterCommit(taskId);
+        }
         approvalService.insertOnConflictUpdate(ChangingStatus.waitingForApproveWith(taskId));
         return taskId;
     }
@@ -63,6 +65,7 @@ public class CreateTaskOperation {
     @RequiredArgsConstructor
     public static class CreateTaskRequest {
 
+        public final String userUuid;
         public final TaskRecord newTask;
         public final List<AttachPhotosRequest> attachPhotosRequest;
     }
@@ -29,6 +29,7 @@ public class EditTaskOperation {
 
     private final TaskService taskService;
     private final AttachmentService attachmentService;
+    private final GenerateThumbnailsOperation generateThumbnailsOperation;
 
     public void process(EditTaskRequest request) {
         log.info("EditTaskOperation.process.in request = {}", request);
@@ -49,6 +50,9 @@ public class EditTaskOperation {
             .collect(toList());
         taskService.update(updated);
         attachmentService.attach(attachmentRecords);
+        if (!attachmentRecords.isEmpty()) {
+            generateThumbnailsOperation.processAfterCommit(id);
+        }
     }
 
     private TaskRecord updateRequest(TaskRecord newTask, TaskRecord oldTask) {
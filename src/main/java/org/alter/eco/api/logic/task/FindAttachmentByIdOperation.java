@@ -1,14 +1,16 @@
 package org.alter.eco.api.logic.task;
 
 import lombok.RequiredArgsConstructor;
+import org.alter.eco.api.model.AttachmentContent;
+import org.alter.eco.api.model.ThumbnailSize;
 import org.alter.eco.api.service.db.AttachmentService;
-import org.alter.eco.api.jooq.tables.records.AttachmentRecord;
+import org.alter.eco.api.service.db.ThumbnailService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static org.alter.eco.api.exception.ApplicationError.ATTACHMENTS_NOT_FOUND;
 
 @Component
@@ -18,16 +20,38 @@ public class FindAttachmentByIdOperation {
     private final static Logger log = LoggerFactory.getLogger(FindAttachmentByIdOperation.class);
 
     private final AttachmentService attachmentService;
+    private final ThumbnailService thumbnailService;
+    private final GenerateThumbnailsOperation generateThumbnailsOperation;
 
-    public AttachmentRecord process(Long id) {
-        log.info("FindAttachmentByIdOperation.process.in id = {}", id);
-        var result = internalProcess(id);
+    public AttachmentContent process(FindAttachmentRequest request) {
+        log.info("FindAttachmentByIdOperation.process.in request = {}", request);
+        var result = internalProcess(request);
         log.info("FindAttachmentByIdOperation.process.out");
         return result;
     }
 
-    private AttachmentRecord internalProcess(Long id) {
-        return attachmentService.findById(id)
+    private AttachmentContent internalProcess(FindAttachmentRequest request) {
+        var id = request.id();
+        if (nonNull(request.size())) {
+            var thumbnail = thumbnailService.find(id, request.size().value);
+            if (thumbnail.isPresent()) {
+                var t = thumbnail.get();
+                var etag = nonNull(t.getContentKey()) ? t.getContentKey() : request.size().value + "-" + id;
+                return AttachmentContent.of(id, t.getType(), t.getLength(), etag, thumbnailService.content(t));
+            }
+        }
+        var attachment = attachmentService.findById(id)
             .orElseThrow(() -> ATTACHMENTS_NOT_FOUND.exception("No attachments found with id = " + id));
+        var content = attachmentService.content(attachment);
+        if (isNull(request.size())) {
+            return AttachmentContent.of(
+                attachment.getId(), attachment.getType(), attachment.getLength(), attachment.getContentKey(), content
+            );
+        }
+        // thumbnail is not ready yet, the original is served without caching so the next request picks it up
+        generateThumbnailsOperation.process(attachment);
+        return AttachmentContent.uncached(attachment.getId(), attachment.getType(), attachment.getLength(), content);
     }
+
+    public static record FindAttachmentRequest(Long id, ThumbnailSize size) {}
 }
@@ -1,7 +1,7 @@
 package org.alter.eco.api.logic.task;
 
 import lombok.RequiredArgsConstructor;
-import org.alter.eco.api.jooq.tables.records.AttachmentRecord;
+import org.alter.eco.api.model.AttachmentContent;
 import org.alter.eco.api.service.db.AttachmentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.List;
 
+import static java.util.stream.Collectors.toList;
 import static org.alter.eco.api.exception.ApplicationError.ATTACHMENTS_NOT_FOUND;
 
 @Component
@@ -19,18 +20,22 @@ public class FindAttachmentsByTaskIdOperation {
 
     private final AttachmentService attachmentService;
 
-    public List<AttachmentRecord> process(Long taskId) {
+    public List<AttachmentContent> process(Long taskId) {
         log.info("FindAttachmentsByTaskIdOperation.process.in taskId = {}", taskId);
         var result = internalProcess(taskId);
         log.info("FindAttachmentsByTaskIdOperation.process.out");
         return result;
     }
 
-    private List<AttachmentRecord> internalProcess(Long taskId) {
+    private List<AttachmentContent> internalProcess(Long taskId) {
         var attachments = attachmentService.findIdsByTaskId(taskId);
         if (attachments.isEmpty()) {
             throw ATTACHMENTS_NOT_FOUND.exception("No attachments found for task id = " + taskId);
         }
-        return attachments;
+        return attachments.stream()
+            .map(a -> AttachmentContent.of(
+                a.getId(), a.getType(), a.getLength(), a.getContentKey(), attachmentService.content(a)
+            ))
+            .collect(toList());
     }
 }
@@ -6,23 +6,37 @@ import lombok.RequiredArgsConstructor;
 import org.alter.eco.api.jooq.enums.TaskStatus;
 import org.alter.eco.api.jooq.tables.Task;
 import org.alter.eco.api.jooq.tables.records.TaskRecord;
+import org.alter.eco.api.model.BoundingBox;
+import org.alter.eco.api.model.Cursor;
+import org.alter.eco.api.model.Page;
+import org.alter.eco.api.model.Point;
 import org.alter.eco.api.model.Sort;
+import org.alter.eco.api.model.VoteTally;
+import org.alter.eco.api.service.db.ApprovalService;
 import org.alter.eco.api.service.db.AttachmentService;
+import org.alter.eco.api.service.db.FullTextSearch;
 import org.alter.eco.api.service.db.TaskService;
 import org.jooq.Condition;
+import org.jooq.Field;
 import org.jooq.SelectForUpdateStep;
 import org.jooq.SelectWhereStep;
+import org.jooq.SortField;
+import org.jooq.SortOrder;
+import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
-import static java.lang.String.format;
 import static java.util.Objects.nonNull;
 import static java.util.Objects.requireNonNullElse;
 import static java.util.Optional.ofNullable;
+import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
+import static org.alter.eco.api.exception.ValidationError.INVALID_CURSOR;
 
 @Component
 @RequiredArgsConstructor
@@ -32,21 +46,31 @@ public class FindTasksOperation {
 
     private final TaskService taskService;
     private final AttachmentService attachmentService;
+    private final ApprovalService approvalService;
 
-    public List<org.alter.eco.api.model.Task> process(FindTasksRequest request) {
+    public Page<org.alter.eco.api.model.Task> process(FindTasksRequest request, String user) {
         log.info("FindTasksOperation.process.in request = {}", request);
-        var result = internalProcess(request);
+        var result = internalProcess(request, user);
         log.info("FindTasksOperation.process.out");
         return result;
     }
 
-    private List<org.alter.eco.api.model.Task> internalProcess(FindTasksRequest request) {
+    private Page<org.alter.eco.api.model.Task> internalProcess(FindTasksRequest request, String user) {
         var tasks = taskService.findByFilters(request);
         var taskIds = tasks.stream().map(TaskRecord::getId).collect(toList());
         var attachments = attachmentService.findIdsByTaskId(taskIds);
-        return tasks.stream()
-            .map(t -> org.alter.eco.api.model.Task.of(t, attachments.get(t.getId())))
+        var votes = approvalService.findTallies(taskIds, user);
+        var result = tasks.stream()
+            .map(t -> org.alter.eco.api.model.Task.of(
+                t,
+                attachments.get(t.getId()),
+                votes.getOrDefault(t.getId(), VoteTally.empty(t.getId()))
+            ))
             .collect(toList());
+        var cursor = tasks.isEmpty() || tasks.size() < request.pageSize()
+                     ? null
+                     : request.cursorAfter(tasks.get(tasks.size() - 1));
+        return new Page<>(result, cursor);
     }
 
     public static record FindTasksRequest(
@@ -54,9 +78,13 @@ public class FindTasksOperation {
         @JsonProperty("assignee") String assignee,
         @JsonProperty("createdBy") String createdBy,
         @JsonProperty("searchString") String searchString,
+        @JsonProperty("near") Point near,
+        @JsonProperty("radius") Double radius,
+        @JsonProperty("box") BoundingBox box,
         @JsonProperty("sort") List<Sort> sort,
         @JsonProperty("offset") Long offset,
-        @JsonProperty("limit") Long limit) {
+        @JsonProperty("limit") Long limit,
+        @JsonProperty("cursor") String cursor) {
 
         @JsonCreator
         public FindTasksRequest {
@@ -65,7 +93,7 @@ public class FindTasksOperation {
         public SelectForUpdateStep<TaskRecord> withCondition(SelectWhereStep<TaskRecord> query) {
             Condition condition = null;
             if (nonNull(searchString)) {
-                condition = Task.TASK.TITLE.like(format("%s%%", searchString));
+                condition = FullTextSearch.matches(Task.TASK.SEARCH_VECTOR, searchString);
             }
             if (nonNull(status)) {
                 condition = condition == null ?
@@ -83,14 +111,93 @@ public class FindTasksOperation {
                             condition.and(Task.TASK.CREATED_BY.equal(createdBy));
             }
 
+            if (nonNull(near) && nonNull(radius)) {
+                var withinRadius = DSL.condition("{0} <@ circle({1}, {2})", Task.TASK.COORDINATE, coordinate(near), DSL.val(radius));
+                condition = condition == null ?
+                            withinRadius :
+                            condition.and(withinRadius);
+            }
+            if (nonNull(box)) {
+                var withinBox = DSL.condition("{0} <@ box({1}, {2})", Task.TASK.COORDINATE, coordinate(box.southWest()), coordinate(box.northEast()));
+                condition = condition == null ?
+                            withinBox :
+                            condition.and(withinBox);
+            }
+
             if (condition != null) {
                 query.where(condition);
             }
 
-            return query
-                .orderBy(ofNullable(sort).orElse(List.of()).stream().map(Sort::value).collect(toList()))
-                .limit(requireNonNullElse(limit, 20L))
+            var sorts = keysetSort();
+            var orderBy = new ArrayList<SortField<?>>();
+            leadingOrder().ifPresent(orderBy::add);
+            sorts.forEach(s -> orderBy.add(s.value()));
+            var ordered = query.orderBy(orderBy);
+            if (nonNull(cursor)) {
+                if (leadingOrder().isPresent()) {
+                    throw INVALID_CURSOR.exception("Cursor is not available for results ordered by distance or rank");
+                }
+                var decoded = Cursor.decode(cursor, sorts.size() + 1);
+                if (!sortNames(sorts).equals(decoded.get(0))) {
+                    throw INVALID_CURSOR.exception("Cursor was issued for another sort order");
+                }
+                var seek = new ArrayList<Field<?>>();
+                for (int i = 0; i < sorts.size(); i++) {
+                    seek.add(sorts.get(i).seekValue(decoded.get(i + 1)));
+                }
+                return ordered
+                    .seek(seek.toArray(Field<?>[]::new))
+                    .limit(pageSize());
+            }
+            return ordered
+                .limit(pageSize())
                 .offset(requireNonNullElse(offset, 0L));
         }
+
+        public long pageSize() {
+            return Page.size(limit);
+        }
+
+        public String cursorAfter(TaskRecord last) {
+            if (leadingOrder().isPresent()) {
+                return null;
+            }
+            var sorts = keysetSort();
+            var values = new ArrayList<String>();
+            values.add(sortNames(sorts));
+            sorts.forEach(s -> values.add(s.keyOf(last)));
+            return new Cursor(values).encode();
+        }
+
+        // Tasks near a point are ordered by distance (KNN over the GiST index) and search results by relevance,
+        // unless the client asked for an explicit order
+        private Optional<SortField<?>> leadingOrder() {
+            if (sort != null && !sort.isEmpty()) {
+                return Optional.empty();
+            } else if (nonNull(near)) {
+                return Optional.of(DSL.field("{0} <-> {1}", Double.class, Task.TASK.COORDINATE, coordinate(near)).asc());
+            } else if (nonNull(searchString)) {
+                return Optional.of(FullTextSearch.rank(Task.TASK.SEARCH_VECTOR, searchString).desc());
+            }
+            return Optional.empty();
+        }
+
+        private static Field<Point> coordinate(Point point) {
+            return DSL.val(point, Task.TASK.COORDINATE);
+        }
+
+        // Id is appended as a tiebreaker so that every row has a unique position to seek from
+        private List<Sort> keysetSort() {
+            var sorts = new ArrayList<>(ofNullable(sort).orElse(List.of()));
+            if (!sorts.contains(Sort.ID) && !sorts.contains(Sort.ID_DESC)) {
+                var descending = !sorts.isEmpty() && sorts.get(sorts.size() - 1).order() == SortOrder.DESC;
+                sorts.add(descending ? Sort.ID_DESC : Sort.ID);
+            }
+            return sorts;
+        }
+
+        private static String sortNames(List<Sort> sorts) {
+            return sorts.stream().map(Sort::name).collect(joining(","));
+        }
     }
 }
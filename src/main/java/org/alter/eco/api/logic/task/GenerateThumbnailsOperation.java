@@ -0,0 +1,114 @@
+package org.alter.eco.api.logic.task;
+
+import org.alter.eco.api.jooq.tables.records.AttachmentRecord;
+import org.alter.eco.api.jooq.tables.records.AttachmentThumbnailRecord;
+import org.alter.eco.api.model.ThumbnailSize;
+import org.alter.eco.api.service.db.AttachmentService;
+import org.alter.eco.api.service.db.ThumbnailService;
+import org.alter.eco.api.service.image.ImageResizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+@Component
+public class GenerateThumbnailsOperation {
+
+    private final static Logger log = LoggerFactory.getLogger(GenerateThumbnailsOperation.class);
+
+    private final AttachmentService attachmentService;
+    private final ThumbnailService thumbnailService;
+    private final ImageResizer imageResizer;
+    private final ExecutorService thumbnailExecutor;
+
+    private final Set<Long> inProgress = ConcurrentHashMap.newKeySet();
+
+    public GenerateThumbnailsOperation(AttachmentService attachmentService,
+                                       ThumbnailService thumbnailService,
+                                       ImageResizer imageResizer,
+                                       @Qualifier("thumbnailExecutor") ExecutorService thumbnailExecutor) {
+        this.attachmentService = attachmentService;
+        this.thumbnailService = thumbnailService;
+        this.imageResizer = imageResizer;
+        this.thumbnailExecutor = thumbnailExecutor;
+    }
+
+    // attachments inserted by the calling transaction are invisible to the worker until it commits
+    public void processAfterCommit(Long taskId) {
+        log.info("GenerateThumbnailsOperation.processAfterCommit.in taskId = {}", taskId);
+        Runnable job = () -> attachmentService.findIdsByTaskId(taskId).forEach(this::generate);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    submit(job);
+                }
+            });
+        } else {
+            submit(job);
+        }
+        log.info("GenerateThumbnailsOperation.processAfterCommit.out");
+    }
+
+    public void process(AttachmentRecord attachment) {
+        log.info("GenerateThumbnailsOperation.process.in attachmentId = {}", attachment.getId());
+        submit(() -> generate(attachment));
+        log.info("GenerateThumbnailsOperation.process.out");
+    }
+
+    private void submit(Runnable job) {
+        try {
+            thumbnailExecutor.execute(job);
+        } catch (RejectedExecutionException e) {
+            log.warn("GenerateThumbnailsOperation.submit thumbnail queue is full, generation postponed to the next request");
+        }
+    }
+
+    private void generate(AttachmentRecord attachment) {
+        var id = attachment.getId();
+        if (!inProgress.add(id)) {
+            return;
+        }
+        try {
+            var existing = thumbnailService.findSizes(id);
+            if (existing.size() == ThumbnailSize.values().length) {
+                return;
+            }
+            try (var in = attachmentService.content(attachment).getInputStream()) {
+                var image = imageResizer.read(in);
+                if (image.isEmpty()) {
+                    log.warn("GenerateThumbnailsOperation.generate attachment id = {} is not a readable image", id);
+                    return;
+                }
+                for (var size : ThumbnailSize.values()) {
+                    if (existing.contains(size.value)) {
+                        continue;
+                    }
+                    imageResizer.resize(image.get(), attachment.getType(), size.maxSide)
+                        .ifPresent(content -> thumbnailService.insert(asRecord(attachment, size, content)));
+                }
+            }
+        } catch (Exception e) {
+            log.error("GenerateThumbnailsOperation.generate.thrown attachment id = {}", id, e);
+        } finally {
+            inProgress.remove(id);
+        }
+    }
+
+    private static AttachmentThumbnailRecord asRecord(AttachmentRecord attachment, ThumbnailSize size, byte[] content) {
+        var r = new AttachmentThumbnailRecord();
+        r.setAttachmentId(attachment.getId());
+        r.setSize(size.value);
+        r.setType(attachment.getType());
+        r.setContent(content);
+        r.setLength((long) content.length);
+        return r;
+    }
+}
@@ -6,6 +6,9 @@ import org.alter.eco.api.jooq.enums.AccountStatus;
 import org.alter.eco.api.jooq.tables.records.AccountRecord;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+
+import static java.util.Optional.ofNullable;
 
 public record Account(
     @JsonProperty("userId") String userId,
@@ -23,8 +26,13 @@ public record Account(
             record.getUserId(),
             record.getAmount(),
             record.getStatus(),
-            record.getUpdated().toLocalDateTime(),
-            record.getCreated().toLocalDateTime()
+            ofNullable(record.getUpdated()).map(OffsetDateTime::toLocalDateTime).orElse(null),
+            ofNullable(record.getCreated()).map(OffsetDateTime::toLocalDateTime).orElse(null)
         );
     }
+
+    // accounts are created by the first accrual, until then the user has an empty active one
+    public static Account empty(String userId) {
+        return new Account(userId, 0L, AccountStatus.ACTIVE, null, null);
+    }
 }
@@ -0,0 +1,25 @@
+package org.alter.eco.api.model;
+
+import org.springframework.core.io.Resource;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+public record AttachmentContent(Long id, String type, Long length, String etag, Resource content) {
+
+    // attachments are never updated in place, editing a task detaches and inserts new rows
+    public static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    public static AttachmentContent of(Long id, String type, Long length, String contentKey, Resource content) {
+        var etag = "\"" + (isNull(contentKey) ? "id-" + id : contentKey) + "\"";
+        return new AttachmentContent(id, type, length, etag, content);
+    }
+
+    public static AttachmentContent uncached(Long id, String type, Long length, Resource content) {
+        return new AttachmentContent(id, type, length, null, content);
+    }
+
+    public boolean cacheable() {
+        return nonNull(etag);
+    }
+}
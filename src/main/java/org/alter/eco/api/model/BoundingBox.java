@@ -0,0 +1,11 @@
+package org.alter.eco.api.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record BoundingBox(@JsonProperty("southWest") Point southWest, @JsonProperty("northEast") Point northEast) {
+
+    @JsonCreator
+    public BoundingBox {
+    }
+}
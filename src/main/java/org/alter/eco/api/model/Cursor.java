@@ -0,0 +1,47 @@
+package org.alter.eco.api.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static org.alter.eco.api.exception.ValidationError.INVALID_CURSOR;
+
+public record Cursor(List<String> values) {
+
+    private static final String SEPARATOR = "|";
+    private static final String NULL = "~";
+
+    public static Cursor of(String... values) {
+        return new Cursor(Arrays.asList(values));
+    }
+
+    public String encode() {
+        var raw = values.stream()
+            .map(v -> isNull(v) ? NULL : v)
+            .collect(joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token, int size) {
+        try {
+            var raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            var values = Arrays.stream(raw.split("\\" + SEPARATOR, -1))
+                .map(v -> NULL.equals(v) ? null : v)
+                .collect(toList());
+            if (values.size() != size) {
+                throw INVALID_CURSOR.exception(token);
+            }
+            return new Cursor(values);
+        } catch (IllegalArgumentException e) {
+            throw INVALID_CURSOR.exception(e, token);
+        }
+    }
+
+    public String get(int index) {
+        return values.get(index);
+    }
+}
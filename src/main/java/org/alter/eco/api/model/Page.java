@@ -0,0 +1,25 @@
+package org.alter.eco.api.model;
+
+import java.util.List;
+
+import static java.lang.Math.min;
+import static java.util.Objects.isNull;
+import static org.alter.eco.api.exception.ValidationError.INVALID_PAGE_SIZE;
+
+public record Page<T>(List<T> content, String cursor) {
+
+    public static final String CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final long DEFAULT_SIZE = 20;
+    private static final long MAX_SIZE = 100;
+
+    // larger pages are capped rather than rejected, so existing clients keep working
+    public static long size(Long limit) {
+        if (isNull(limit)) {
+            return DEFAULT_SIZE;
+        } else if (limit <= 0) {
+            throw INVALID_PAGE_SIZE.exception("Page size must be positive, got " + limit);
+        }
+        return min(limit, MAX_SIZE);
+    }
+}
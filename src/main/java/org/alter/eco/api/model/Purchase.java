@@ -0,0 +1,28 @@
+package org.alter.eco.api.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.alter.eco.api.jooq.tables.records.ItemRecord;
+import org.alter.eco.api.jooq.tables.records.OrderRecord;
+
+import java.time.LocalDateTime;
+
+public record Purchase(
+    @JsonProperty("id") Long id,
+    @JsonProperty("item") Item item,
+    @JsonProperty("quantity") Long quantity,
+    @JsonProperty("created") LocalDateTime created) {
+
+    @JsonCreator
+    public Purchase {
+    }
+
+    public static Purchase of(OrderRecord order, ItemRecord item) {
+        return new Purchase(
+            order.getId(),
+            Item.of(item),
+            order.getQuantity(),
+            order.getCreated()
+        );
+    }
+}
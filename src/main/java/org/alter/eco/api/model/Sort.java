@@ -1,26 +1,67 @@
 package org.alter.eco.api.model;
 
 import org.alter.eco.api.jooq.tables.Task;
+import org.alter.eco.api.jooq.tables.records.TaskRecord;
+import org.jooq.Field;
 import org.jooq.SortField;
+import org.jooq.SortOrder;
+import org.jooq.TableField;
+import org.jooq.impl.DSL;
+
+import java.time.LocalDateTime;
+
+import static java.util.Objects.isNull;
 
 public enum Sort {
 
-    REWARD_DESC(Task.TASK.REWARD.desc()),
-    ID_DESC(Task.TASK.ID.desc()),
-    CREATED_DESC(Task.TASK.CREATED.desc()),
-    DUE_DATE_DESC(Task.TASK.DUE_DATE.desc()),
-    REWARD(Task.TASK.REWARD.asc()),
-    ID(Task.TASK.ID.asc()),
-    CREATED(Task.TASK.CREATED.asc()),
-    DUE_DATE(Task.TASK.DUE_DATE.asc());
+    REWARD_DESC(Task.TASK.REWARD, Task.TASK.REWARD, SortOrder.DESC),
+    ID_DESC(Task.TASK.ID, Task.TASK.ID, SortOrder.DESC),
+    CREATED_DESC(Task.TASK.CREATED, Task.TASK.CREATED, SortOrder.DESC),
+    DUE_DATE_DESC(Task.TASK.DUE_DATE, dueDateKey(), SortOrder.DESC),
+    REWARD(Task.TASK.REWARD, Task.TASK.REWARD, SortOrder.ASC),
+    ID(Task.TASK.ID, Task.TASK.ID, SortOrder.ASC),
+    CREATED(Task.TASK.CREATED, Task.TASK.CREATED, SortOrder.ASC),
+    DUE_DATE(Task.TASK.DUE_DATE, dueDateKey(), SortOrder.ASC);
 
+    private final TableField<TaskRecord, ?> column;
+    private final Field<?> key;
     private final SortField<?> value;
 
-    Sort(SortField<?> value) {
-        this.value = value;
+    Sort(TableField<TaskRecord, ?> column, Field<?> key, SortOrder order) {
+        this.column = column;
+        this.key = key;
+        this.value = key.sort(order);
     }
 
     public SortField<?> value() {
         return value;
     }
+
+    public SortOrder order() {
+        return value.getOrder();
+    }
+
+    public String keyOf(TaskRecord record) {
+        var v = record.get(column);
+        return isNull(v) ? null : v.toString();
+    }
+
+    public Field<?> seekValue(String keyValue) {
+        if (isNull(keyValue)) {
+            return infinity();
+        } else if (column.getType() == LocalDateTime.class) {
+            return DSL.val(LocalDateTime.parse(keyValue), key);
+        }
+        return DSL.val(Long.valueOf(keyValue), key);
+    }
+
+    // NULL due dates are sorted as 'infinity' which keeps PostgreSQL's default NULLS LAST / NULLS FIRST order
+    // and lets them take part in keyset comparisons
+    private static Field<LocalDateTime> dueDateKey() {
+        return DSL.coalesce(Task.TASK.DUE_DATE, infinity());
+    }
+
+    private static Field<LocalDateTime> infinity() {
+        return DSL.field("'infinity'::timestamp", LocalDateTime.class);
+    }
 }
@@ -20,6 +20,7 @@ public record Task(
     @JsonProperty("type") TaskType type,
     @JsonProperty("reward") Long reward,
     @JsonProperty("attachmentIds") List<Long> attachmentIds,
+    @JsonProperty("votes") VoteTally votes,
     @JsonProperty("assignee") String assignee,
     @JsonProperty("dueDate") LocalDateTime dueDate,
     @JsonProperty("updated") LocalDateTime updated,
@@ -48,6 +49,10 @@ public record Task(
     }
 
     public static Task of(TaskRecord taskRecord, List<Long> attachmentIds) {
+        return of(taskRecord, attachmentIds, null);
+    }
+
+    public static Task of(TaskRecord taskRecord, List<Long> attachmentIds, VoteTally votes) {
         return new Task(
             taskRecord.getId(),
             taskRecord.getTitle(),
@@ -57,6 +62,7 @@ public record Task(
             taskRecord.getType(),
             taskRecord.getReward(),
             attachmentIds,
+            votes,
             taskRecord.getAssignee(),
             taskRecord.getDueDate(),
             taskRecord.getUpdated(),
@@ -0,0 +1,26 @@
+package org.alter.eco.api.model;
+
+import java.util.Arrays;
+
+import static org.alter.eco.api.exception.ValidationError.INVALID_THUMBNAIL_SIZE;
+
+public enum ThumbnailSize {
+
+    THUMB("thumb", 160),
+    PREVIEW("preview", 640);
+
+    public final String value;
+    public final int maxSide;
+
+    ThumbnailSize(String value, int maxSide) {
+        this.value = value;
+        this.maxSide = maxSide;
+    }
+
+    public static ThumbnailSize of(String value) {
+        return Arrays.stream(values())
+            .filter(s -> s.value.equals(value))
+            .findFirst()
+            .orElseThrow(() -> INVALID_THUMBNAIL_SIZE.exception("Unknown size = " + value));
+    }
+}
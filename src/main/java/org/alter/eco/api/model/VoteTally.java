@@ -0,0 +1,20 @@
+package org.alter.eco.api.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.alter.eco.api.jooq.enums.VoteType;
+
+public record VoteTally(
+    @JsonProperty("taskId") Long taskId,
+    @JsonProperty("approvals") Integer approvals,
+    @JsonProperty("rejects") Integer rejects,
+    @JsonProperty("vote") VoteType vote) {
+
+    @JsonCreator
+    public VoteTally {
+    }
+
+    public static VoteTally empty(Long taskId) {
+        return new VoteTally(taskId, 0, 0, null);
+    }
+}
@@ -1,20 +1,49 @@
 package org.alter.eco.api.service.auth;
 
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseToken;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+
 import static org.alter.eco.api.exception.InvocationError.FIREBASE_INVOCATION_ERROR;
 
 @Component
+@RequiredArgsConstructor
 public class AuthService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+
     private final FirebaseAuth firebaseAuth = FirebaseAuth.getInstance();
 
+    private final TokenCache tokenCache;
+    private final Optional<LocalTokenVerifier> localTokenVerifier;
+
     public String getUuidFromToken(String token) {
+        var result = tokenCache.get(token, this::verify).uid();
+        if (log.isDebugEnabled()) {
+            var stats = tokenCache.stats();
+            log.debug("AuthService.getUuidFromToken.out hits = {}, misses = {}", stats.hitCount(), stats.missCount());
+        }
+        return result;
+    }
+
+    private VerifiedToken verify(String token) {
+        return localTokenVerifier
+            .flatMap(v -> v.verify(token))
+            .orElseGet(() -> verifyByFirebase(token));
+    }
+
+    private VerifiedToken verifyByFirebase(String token) {
+        FirebaseToken verified;
         try {
-            return firebaseAuth.verifyIdToken(token).getUid();
+            verified = firebaseAuth.verifyIdToken(token);
         } catch (Exception e) {
             throw FIREBASE_INVOCATION_ERROR.exception(e);
         }
+        return VerifiedToken.of(verified);
     }
 }
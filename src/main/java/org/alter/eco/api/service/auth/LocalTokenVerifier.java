@@ -0,0 +1,138 @@
+package org.alter.eco.api.service.auth;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+import static java.util.Objects.isNull;
+import static org.alter.eco.api.exception.AuthenticationError.UNAUTHORIZED;
+
+@Component
+@ConditionalOnProperty(name = "auth.verifier", havingValue = "local")
+public class LocalTokenVerifier {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final long CLOCK_SKEW_SECONDS = 300;
+
+    private final SigningKeyStore keyStore;
+    private final String audience;
+    private final String issuer;
+
+    public LocalTokenVerifier(SigningKeyStore keyStore, @Value("${auth.project-id}") String projectId) {
+        this.keyStore = keyStore;
+        this.audience = projectId;
+        this.issuer = "https://securetoken.google.com/" + projectId;
+    }
+
+    public Optional<VerifiedToken> verify(String token) {
+        var parts = token.split("\\.");
+        if (parts.length != 3) {
+            throw UNAUTHORIZED.exception("Malformed token");
+        }
+        try {
+            var header = parseHeader(decode(parts[0]));
+            if (!"RS256".equals(header.alg())) {
+                throw UNAUTHORIZED.exception("Unsupported token algorithm " + header.alg());
+            }
+            if (isNull(header.kid()) || header.kid().isBlank()) {
+                throw UNAUTHORIZED.exception("Missing token key id");
+            }
+            var key = keyStore.find(header.kid());
+            if (key.isEmpty()) {
+                return Optional.empty();
+            }
+            var signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(key.get());
+            signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            if (!signature.verify(decode(parts[2]))) {
+                throw UNAUTHORIZED.exception("Invalid token signature");
+            }
+            var claims = parseClaims(decode(parts[1]));
+            validate(claims);
+            return Optional.of(new VerifiedToken(claims.sub(), Instant.ofEpochSecond(claims.exp())));
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            throw UNAUTHORIZED.exception(e, "Cannot parse token");
+        }
+    }
+
+    private void validate(Claims claims) {
+        var now = Instant.now().getEpochSecond();
+        if (!audience.equals(claims.aud())) {
+            throw UNAUTHORIZED.exception("Unexpected token audience " + claims.aud());
+        } else if (!issuer.equals(claims.iss())) {
+            throw UNAUTHORIZED.exception("Unexpected token issuer " + claims.iss());
+        } else if (isNull(claims.sub()) || claims.sub().isEmpty() || claims.sub().length() > 128) {
+            throw UNAUTHORIZED.exception("Invalid token subject");
+        } else if (claims.exp() + CLOCK_SKEW_SECONDS < now) {
+            throw UNAUTHORIZED.exception("Token expired");
+        } else if (claims.iat() - CLOCK_SKEW_SECONDS > now) {
+            throw UNAUTHORIZED.exception("Token issued in the future");
+        }
+    }
+
+    private static byte[] decode(String part) {
+        return Base64.getUrlDecoder().decode(part);
+    }
+
+    private static Header parseHeader(byte[] json) throws IOException {
+        String alg = null;
+        String kid = null;
+        try (var parser = JSON.createParser(json)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var name = parser.getCurrentName();
+                parser.nextToken();
+                switch (name) {
+                    case "alg" -> alg = parser.getText();
+                    case "kid" -> kid = parser.getText();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return new Header(alg, kid);
+    }
+
+    private static Claims parseClaims(byte[] json) throws IOException {
+        String sub = null;
+        String aud = null;
+        String iss = null;
+        long exp = 0;
+        long iat = 0;
+        try (var parser = JSON.createParser(json)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var name = parser.getCurrentName();
+                var token = parser.nextToken();
+                switch (name) {
+                    case "sub" -> sub = parser.getText();
+                    case "aud" -> {
+                        if (token == JsonToken.VALUE_STRING) {
+                            aud = parser.getText();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    case "iss" -> iss = parser.getText();
+                    case "exp" -> exp = parser.getLongValue();
+                    case "iat" -> iat = parser.getLongValue();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return new Claims(sub, aud, iss, exp, iat);
+    }
+
+    private static record Header(String alg, String kid) {}
+
+    private static record Claims(String sub, String aud, String iss, long exp, long iat) {}
+}
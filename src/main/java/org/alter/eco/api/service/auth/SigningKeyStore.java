@@ -0,0 +1,78 @@
+package org.alter.eco.api.service.auth;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "auth.verifier", havingValue = "local")
+public class SigningKeyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SigningKeyStore.class);
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final ResourceLoader resourceLoader;
+    private final String keysLocation;
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+
+    public SigningKeyStore(ResourceLoader resourceLoader,
+                           @Value("${auth.local.keys-location}") String keysLocation) {
+        this.resourceLoader = resourceLoader;
+        this.keysLocation = keysLocation;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void init() {
+        refresh();
+    }
+
+    public Optional<PublicKey> find(String keyId) {
+        return keyId == null ? Optional.empty() : Optional.ofNullable(keys.get(keyId));
+    }
+
+    public void refresh() {
+        log.info("SigningKeyStore.refresh.in keysLocation = {}", keysLocation);
+        try (var in = resourceLoader.getResource(keysLocation).getInputStream()) {
+            keys = parse(in.readAllBytes());
+            log.info("SigningKeyStore.refresh.out keyIds = {}", keys.keySet());
+        } catch (Exception e) {
+            log.error("SigningKeyStore.refresh.thrown Keeping previously loaded keys", e);
+        }
+    }
+
+    private static Map<String, PublicKey> parse(byte[] content) throws IOException, CertificateException {
+        var certificates = CertificateFactory.getInstance("X.509");
+        var result = new HashMap<String, PublicKey>();
+        try (var parser = JSON.createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Signing keys must be a JSON object of key id to X.509 certificate");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var keyId = parser.getCurrentName();
+                parser.nextToken();
+                var pem = parser.getText().getBytes(StandardCharsets.US_ASCII);
+                result.put(keyId, certificates.generateCertificate(new ByteArrayInputStream(pem)).getPublicKey());
+            }
+        }
+        return Map.copyOf(result);
+    }
+}
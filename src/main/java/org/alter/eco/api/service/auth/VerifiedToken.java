@@ -0,0 +1,19 @@
+package org.alter.eco.api.service.auth;
+
+import com.google.firebase.auth.FirebaseToken;
+
+import java.time.Instant;
+
+import static org.alter.eco.api.exception.AuthenticationError.UNAUTHORIZED;
+
+public record VerifiedToken(String uid, Instant expiresAt) {
+
+    public static VerifiedToken of(FirebaseToken token) {
+        // the expiry bounds how long the token is cached, a token without one is not accepted
+        var exp = token.getClaims().get("exp");
+        if (!(exp instanceof Number)) {
+            throw UNAUTHORIZED.exception("Token has no expiry");
+        }
+        return new VerifiedToken(token.getUid(), Instant.ofEpochSecond(((Number) exp).longValue()));
+    }
+}
@@ -0,0 +1,53 @@
+package org.alter.eco.api.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.alter.eco.api.model.Account;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
+
+// Balances changed on this instance are invalidated on commit, changes made by other instances
+// become visible once the entry expires, so a balance is never older than the ttl
+@Component
+public class AccountCache {
+
+    private final Cache<String, Account> cache;
+
+    public AccountCache(@Value("${account.cache.max-size}") Long maxSize,
+                        @Value("${account.cache.ttl-s}") Long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .recordStats()
+            .build();
+    }
+
+    public Account get(String userUuid, Function<String, Account> loader) {
+        return cache.get(userUuid, loader);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // invalidating before the commit would let a concurrent read cache the old balance again
+    public void invalidateAfterCommit(Collection<String> userUuids) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidateAll(userUuids);
+                }
+            });
+        } else {
+            cache.invalidateAll(userUuids);
+        }
+    }
+}
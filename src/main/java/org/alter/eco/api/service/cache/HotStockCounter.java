@@ -0,0 +1,111 @@
+package org.alter.eco.api.service.cache;
+
+import org.alter.eco.api.service.db.ShopService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory stock of the configured hot items that turns purchases of a sold out item away before they reach
+// the database. The database guard stays authoritative: the counter can only run ahead of the real stock
+// (purchases on other instances) until the next reconcile, it never lets an oversold purchase through.
+@Component
+public class HotStockCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(HotStockCounter.class);
+
+    private final ShopService shopService;
+    private final Set<Long> hotItems;
+    private final Long reconcileIntervalMillis;
+
+    private final Map<Long, AtomicLong> stock = new ConcurrentHashMap<>();
+
+    public HotStockCounter(ShopService shopService,
+                           @Value("${shop.hot-items:}") Set<Long> hotItems,
+                           @Value("${shop.hot-stock-reconcile-ms}") Long reconcileIntervalMillis) {
+        this.shopService = shopService;
+        this.hotItems = Set.copyOf(hotItems);
+        this.reconcileIntervalMillis = reconcileIntervalMillis;
+    }
+
+    public boolean enabled() {
+        return !hotItems.isEmpty();
+    }
+
+    public Long reconcileIntervalMillis() {
+        return reconcileIntervalMillis;
+    }
+
+    // false when the item is known to be sold out, other items always go on to the database;
+    // the unit is given back when the purchase does not commit
+    public boolean tryTake(Long itemId) {
+        if (!hotItems.contains(itemId)) {
+            return true;
+        }
+        var counter = counter(itemId);
+        if (counter.getAndUpdate(v -> v > 0 ? v - 1 : 0) == 0) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        counter.incrementAndGet();
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    // the database found no stock: a fresh counter replaces the old one, so units given back later are dropped
+    public void soldOut(Long itemId) {
+        if (hotItems.contains(itemId)) {
+            stock.put(itemId, new AtomicLong());
+        }
+    }
+
+    public void invalidateAfterCommit(Long itemId) {
+        if (!hotItems.contains(itemId)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    stock.remove(itemId);
+                }
+            });
+        } else {
+            stock.remove(itemId);
+        }
+    }
+
+    // loaded outside of the map, a query inside computeIfAbsent would block the bin for its duration
+    private AtomicLong counter(Long itemId) {
+        var counter = stock.get(itemId);
+        if (counter != null) {
+            return counter;
+        }
+        var loaded = new AtomicLong(shopService.findAmounts(Set.of(itemId)).getOrDefault(itemId, 0L));
+        var existing = stock.putIfAbsent(itemId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    public void reconcile() {
+        try {
+            var amounts = shopService.findAmounts(hotItems);
+            hotItems.forEach(id -> stock.computeIfAbsent(id, k -> new AtomicLong()).set(amounts.getOrDefault(id, 0L)));
+        } catch (Exception e) {
+            log.error("HotStockCounter.reconcile.thrown Keeping previous stock", e);
+        }
+    }
+}
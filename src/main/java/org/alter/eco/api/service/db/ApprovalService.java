@@ -2,25 +2,33 @@ package org.alter.eco.api.service.db;
 
 import lombok.RequiredArgsConstructor;
 import org.alter.eco.api.jooq.enums.TaskStatus;
+import org.alter.eco.api.jooq.enums.VoteType;
 import org.alter.eco.api.jooq.tables.Approval;
 import org.alter.eco.api.jooq.tables.Vote;
 import org.alter.eco.api.jooq.tables.records.ApprovalRecord;
 import org.alter.eco.api.jooq.tables.records.VoteRecord;
 import org.alter.eco.api.logic.approval.ApproveScheduledOperation.FindByTasksForTrashingRequest;
 import org.alter.eco.api.logic.approval.ApproveScheduledOperation.FindByTimeShiftAndCounterRequest;
-import org.alter.eco.api.logic.approval.ApproveScheduledOperation.FindClientIdsForAccrualRequest;
+import org.alter.eco.api.logic.approval.ApproveScheduledOperation.SweepScope;
 import org.alter.eco.api.logic.approval.VoteForTaskOperation.VoteForTaskRequest;
 import org.alter.eco.api.model.ChangingStatus;
+import org.alter.eco.api.model.VoteTally;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
 import org.jooq.types.DayToSecond;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static java.util.Objects.isNull;
+
 @Component
 @RequiredArgsConstructor
 public class ApprovalService {
@@ -29,42 +37,75 @@ public class ApprovalService {
 
     private final DSLContext db;
 
+    @Value("${operation.approval.waiting-for-approve-m}")
+    private Long WAITING_FOR_APPROVE_THRESHOLD_MINUTES;
+    @Value("${operation.approval.resolved-m}")
+    private Long RESOLVED_THRESHOLD_MINUTES;
+
     private final Approval approvalTable = Approval.APPROVAL;
     private final Vote voteTable = Vote.VOTE;
 
-    public Optional<ApprovalRecord> findByTaskId(Long taskId) {
-        log.info("ApprovalService.findByTaskId.in taskId = {}", taskId);
-        var result = db.selectFrom(approvalTable)
-            .where(approvalTable.TASK_ID.equal(taskId))
-            .fetchOptional();
-        log.info("ApprovalService.findByTaskId.out");
-        return result;
+    // a retried or changed vote overwrites the previous one; the tally is read in the same statement,
+    // the client's own row comes from the upsert since the CTE cannot see its own writes
+    public Optional<VoteTally> upsertUserVote(VoteForTaskRequest request) {
+        log.info("ApprovalService.upsertUserVote.in request = {}", request);
+        var type = voteTable.TYPE.getUnqualifiedName();
+        var result = db.resultQuery("""
+                WITH upserted AS (
+                    INSERT INTO {0} ({1}, {2}, {3})
+                    SELECT {4}, {5}, {6}
+                    WHERE EXISTS (SELECT 1 FROM {7} WHERE {8} = {5})
+                    ON CONFLICT ({2}, {1}) DO UPDATE SET {3} = excluded.{3}
+                    RETURNING {3}
+                ), votes AS (
+                    SELECT {3} FROM {0} WHERE {2} = {5} AND {1} <> {4}
+                    UNION ALL
+                    SELECT {3} FROM upserted
+                )
+                SELECT count(*) FILTER (WHERE {3} = {9}) AS approvals,
+                       count(*) FILTER (WHERE {3} = {10}) AS rejects,
+                       EXISTS (SELECT 1 FROM upserted) AS voted
+                FROM votes
+                """,
+            voteTable, voteTable.CLIENT_ID.getUnqualifiedName(), voteTable.TASK_ID.getUnqualifiedName(), type,
+            DSL.val(request.clientId()), DSL.val(request.taskId()), DSL.val(request.type()),
+            approvalTable, approvalTable.TASK_ID,
+            DSL.val(VoteType.APPROVE), DSL.val(VoteType.REJECT))
+            .fetchOne();
+        var tally = Optional.of(result)
+            .filter(r -> r.get("voted", Boolean.class))
+            .map(r -> new VoteTally(request.taskId(), r.get("approvals", Integer.class), r.get("rejects", Integer.class), request.type()));
+        log.info("ApprovalService.upsertUserVote.out result = {}", tally);
+        return tally;
     }
 
-    public void insertTaskVotePlus(VoteForTaskRequest request) {
-        log.info("ApprovalService.insertTaskVotePlus.in request = {}", request);
-        db.update(approvalTable)
-            .set(approvalTable.COUNTER, approvalTable.COUNTER.add(1))
-            .where(approvalTable.TASK_ID.equal(request.taskId()))
-            .execute();
-        log.info("ApprovalService.insertTaskVotePlus.out");
+    public Map<Long, VoteTally> findTallies(List<Long> taskIds, String clientId) {
+        log.info("ApprovalService.findTallies.in taskIds = {}, clientId = {}", taskIds, clientId);
+        var result = db.select(
+                voteTable.TASK_ID,
+                DSL.count().filterWhere(voteTable.TYPE.equal(VoteType.APPROVE)),
+                DSL.count().filterWhere(voteTable.TYPE.equal(VoteType.REJECT)),
+                DSL.max(voteTable.TYPE).filterWhere(voteTable.CLIENT_ID.equal(clientId)))
+            .from(voteTable)
+            .where(voteTable.TASK_ID.in(taskIds))
+            .groupBy(voteTable.TASK_ID)
+            .fetchMap(r -> r.value1(), r -> new VoteTally(r.value1(), r.value2(), r.value3(), r.value4()));
+        log.info("ApprovalService.findTallies.out result = {}", result);
+        return result;
     }
 
-    public void insertTaskVoteMinus(VoteForTaskRequest request) {
-        log.info("ApprovalService.insertTaskVoteMinus.in request = {}", request);
-        db.update(approvalTable)
-            .set(approvalTable.COUNTER, approvalTable.COUNTER.sub(1))
-            .where(approvalTable.TASK_ID.equal(request.taskId()))
-            .execute();
-        log.info("ApprovalService.insertTaskVoteMinus.out");
+    public List<ApprovalRecord> recomputeCounters(Collection<Long> taskIds) {
+        log.info("ApprovalService.recomputeCounters.in taskIds = {}", taskIds);
+        var result = recomputeCounters(voteTable.TASK_ID.equal(DSL.any(taskIds.toArray(Long[]::new))));
+        log.info("ApprovalService.recomputeCounters.out result = {}", result);
+        return result;
     }
 
-    public void insertUserVote(VoteForTaskRequest request) {
-        log.info("ApprovalService.insertUserVote.in request = {}", request);
-        db.insertInto(voteTable)
-            .set(request.voteRecord())
-            .execute();
-        log.info("ApprovalService.insertUserVote.out");
+    public int recomputeAllCounters() {
+        log.info("ApprovalService.recomputeAllCounters.in");
+        var result = recomputeCounters(DSL.noCondition()).size();
+        log.info("ApprovalService.recomputeAllCounters.out result = {}", result);
+        return result;
     }
 
     public void insertOnConflictUpdate(ChangingStatus request) {
@@ -73,62 +114,134 @@ public class ApprovalService {
         approval.setTaskId(request.taskId());
         approval.setStatus(request.status());
 
+        // deadlines come from the database clock, like created and the trashing condition they are compared in
         db.insertInto(approvalTable)
             .set(approval)
+            .set(approvalTable.DEADLINE, DSL.currentLocalDateTime().add(window(request.status())))
             .onConflictOnConstraint(approvalTable.getPrimaryKey())
             .doUpdate()
             .set(approvalTable.STATUS, request.status())
+            .set(approvalTable.DEADLINE, approvalTable.CREATED.add(window(request.status())))
             .where(approvalTable.TASK_ID.equal(request.taskId()))
             .execute();
         log.info("ApprovalService.insertOnConflictUpdate.out");
     }
 
-    public List<ApprovalRecord> findTasksForTrashing(FindByTasksForTrashingRequest request) {
-        log.info("ApprovalService.findTasksForTrashing.in request = {}", request);
-        var result = db.deleteFrom(approvalTable)
-            .where(
-                approvalTable.CREATED.add(DayToSecond.minute(String.valueOf(request.approveMinutesThreshold()))).lessOrEqual(LocalDateTime.now())
-                    .and(approvalTable.COUNTER.lessThan(request.approveCountThreshold()))
-                    .and(approvalTable.STATUS.equal(TaskStatus.WAITING_FOR_APPROVE))
-            ).or(
-                approvalTable.CREATED.add(DayToSecond.minute(String.valueOf(request.completeMinutesThreshold()))).lessOrEqual(LocalDateTime.now())
-                    .and(approvalTable.COUNTER.lessThan(request.completeCountThreshold()))
-                    .and(approvalTable.STATUS.equal(TaskStatus.RESOLVED))
-            )
-            .returning(approvalTable.TASK_ID, approvalTable.STATUS)
-            .fetch();
+    public List<ApprovalRecord> findTasksForTrashing(FindByTasksForTrashingRequest request, SweepScope scope, int limit) {
+        log.info("ApprovalService.findTasksForTrashing.in request = {}, scope = {}, limit = {}", request, scope, limit);
+        var result = claimChunk(scoped(trashingCondition(request), scope), limit);
         log.info("ApprovalService.findTasksForTrashing.out result = {}", result);
         return result;
     }
 
-    public List<ApprovalRecord> findTasksForApproving(FindByTimeShiftAndCounterRequest request) {
-        log.info("ApprovalService.findTasksForApproving.in request = {}", request);
+    public List<ApprovalRecord> findTasksForApproving(FindByTimeShiftAndCounterRequest request, SweepScope scope, int limit) {
+        log.info("ApprovalService.findTasksForApproving.in request = {}, scope = {}, limit = {}", request, scope, limit);
+        var result = claimChunk(scoped(approvingCondition(request), scope), limit);
+        log.info("ApprovalService.findTasksForApproving.out result = {}", result);
+        return result;
+    }
+
+    public List<Long> findIdsForTrashing(FindByTasksForTrashingRequest request, SweepScope scope, int limit) {
+        log.info("ApprovalService.findIdsForTrashing.in request = {}, scope = {}, limit = {}", request, scope, limit);
+        var result = findIds(scoped(trashingCondition(request), scope), limit);
+        log.info("ApprovalService.findIdsForTrashing.out result = {}", result);
+        return result;
+    }
+
+    public List<Long> findIdsForApproving(FindByTimeShiftAndCounterRequest request, SweepScope scope, int limit) {
+        log.info("ApprovalService.findIdsForApproving.in request = {}, scope = {}, limit = {}", request, scope, limit);
+        var result = findIds(scoped(approvingCondition(request), scope), limit);
+        log.info("ApprovalService.findIdsForApproving.out result = {}", result);
+        return result;
+    }
+
+    public Optional<ApprovalRecord> claim(Long taskId, TaskStatus status) {
+        log.info("ApprovalService.claim.in taskId = {}, status = {}", taskId, status);
         var result = db.deleteFrom(approvalTable)
-            .where(approvalTable.COUNTER.greaterOrEqual(request.counterThreshold()))
-            .and(approvalTable.STATUS.equal(request.status()))
+            .where(approvalTable.TASK_ID.equal(taskId))
+            .and(approvalTable.STATUS.equal(status))
             .returning(approvalTable.TASK_ID, approvalTable.STATUS)
-            .fetch();
-        log.info("ApprovalService.findTasksForApproving.out result = {}", result);
+            .fetchOptional();
+        log.info("ApprovalService.claim.out result = {}", result);
         return result;
     }
 
-    public List<String> findClientIdsForAccrual(FindClientIdsForAccrualRequest request) {
-        log.info("ApprovalService.findClientIdsForAccrual.in taskId = {}", request);
+    public List<VoteRecord> deleteVotes(Collection<Long> taskIds) {
+        log.info("ApprovalService.deleteVotes.in taskIds = {}", taskIds);
         var result = db.deleteFrom(voteTable)
-            .where(voteTable.TASK_ID.equal(request.taskId()))
-            .and(voteTable.TYPE.equal(request.type()))
-            .returning(voteTable.CLIENT_ID)
-            .fetch()
-            .map(VoteRecord::getClientId);
-        log.info("ApprovalService.findClientIdsForAccrual.out result = {}", result);
+            .where(voteTable.TASK_ID.equal(DSL.any(taskIds.toArray(Long[]::new))))
+            .returning(voteTable.TASK_ID, voteTable.CLIENT_ID, voteTable.TYPE)
+            .fetch();
+        log.info("ApprovalService.deleteVotes.out result = {}", result.size());
         return result;
     }
 
-    public void deleteUserVotes(Long taskId) {
-        log.info("ApprovalService.deleteUserVotes.in taskId = {}", taskId);
-        db.deleteFrom(voteTable)
-            .where(voteTable.TASK_ID.equal(taskId))
-            .execute();
-        log.info("ApprovalService.deleteUserVotes.out");
+    // vote is the source of truth, the counter is derived from it and safe to recompute at any time
+    private List<ApprovalRecord> recomputeCounters(Condition votes) {
+        var counter = DSL.count().filterWhere(voteTable.TYPE.equal(VoteType.APPROVE))
+            .minus(DSL.count().filterWhere(voteTable.TYPE.equal(VoteType.REJECT)))
+            .cast(Long.class)
+            .as("counter");
+        var tally = db.select(voteTable.TASK_ID, counter)
+            .from(voteTable)
+            .where(votes)
+            .groupBy(voteTable.TASK_ID)
+            .asTable("tally");
+        return db.update(approvalTable)
+            .set(approvalTable.COUNTER, tally.field(counter))
+            .from(tally)
+            .where(approvalTable.TASK_ID.equal(tally.field(voteTable.TASK_ID)))
+            .returning(approvalTable.TASK_ID, approvalTable.STATUS, approvalTable.COUNTER)
+            .fetch();
+    }
+
+    private DayToSecond window(TaskStatus status) {
+        var minutes = status == TaskStatus.RESOLVED ? RESOLVED_THRESHOLD_MINUTES : WAITING_FOR_APPROVE_THRESHOLD_MINUTES;
+        return DayToSecond.minute(String.valueOf(minutes));
+    }
+
+    private Condition trashingCondition(FindByTasksForTrashingRequest request) {
+        return approvalTable.DEADLINE.lessOrEqual(DSL.currentLocalDateTime())
+            .and(
+                approvalTable.STATUS.equal(TaskStatus.WAITING_FOR_APPROVE)
+                    .and(approvalTable.COUNTER.lessThan(request.approveCountThreshold()))
+                    .or(approvalTable.STATUS.equal(TaskStatus.RESOLVED)
+                        .and(approvalTable.COUNTER.lessThan(request.completeCountThreshold())))
+            );
+    }
+
+    private Condition approvingCondition(FindByTimeShiftAndCounterRequest request) {
+        return approvalTable.COUNTER.greaterOrEqual(request.counterThreshold())
+            .and(approvalTable.STATUS.equal(request.status()));
+    }
+
+    private Condition scoped(Condition condition, SweepScope scope) {
+        var result = condition.and(approvalTable.TASK_ID.mod(scope.partitions()).equal((long) scope.partition()));
+        return isNull(scope.taskId()) ? result : result.and(approvalTable.TASK_ID.equal(scope.taskId()));
+    }
+
+    private List<Long> findIds(Condition condition, int limit) {
+        return db.select(approvalTable.TASK_ID)
+            .from(approvalTable)
+            .where(condition)
+            .orderBy(approvalTable.TASK_ID)
+            .limit(limit)
+            .fetch(approvalTable.TASK_ID);
+    }
+
+    // rows locked by another instance are skipped instead of waited for, so every node claims a disjoint chunk
+    private List<ApprovalRecord> claimChunk(Condition condition, int limit) {
+        return db.deleteFrom(approvalTable)
+            .where(approvalTable.TASK_ID.in(
+                db.select(approvalTable.TASK_ID)
+                    .from(approvalTable)
+                    .where(condition)
+                    .orderBy(approvalTable.TASK_ID)
+                    .limit(limit)
+                    .forUpdate()
+                    .skipLocked()
+            ))
+            .returning(approvalTable.TASK_ID, approvalTable.STATUS)
+            .fetch();
     }
 }
@@ -3,15 +3,24 @@ package org.alter.eco.api.service.db;
 import lombok.RequiredArgsConstructor;
 import org.alter.eco.api.jooq.tables.Attachment;
 import org.alter.eco.api.jooq.tables.records.AttachmentRecord;
+import org.alter.eco.api.service.storage.ContentStore;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.alter.eco.api.exception.InvocationError.STORAGE_INVOCATION_ERROR;
+
 @Component
 @RequiredArgsConstructor
 public class AttachmentService {
@@ -19,11 +28,16 @@ public class AttachmentService {
     private static final Logger log = LoggerFactory.getLogger(AttachmentService.class);
 
     private final DSLContext db;
+    private final Optional<ContentStore> contentStore;
 
     private final Attachment attachmentTable = Attachment.ATTACHMENT;
 
     public void attach(List<AttachmentRecord> attachPhotos) {
         log.info("AttachmentService.attach.in attachPhotos = {}", attachPhotos);
+        contentStore.ifPresent(store -> attachPhotos.forEach(a -> {
+            a.setContentKey(store.put(a.getContent()));
+            a.setContent(null);
+        }));
         db.batchInsert(attachPhotos)
             .execute();
         log.info("AttachmentService.attach.out");
@@ -39,9 +53,10 @@ public class AttachmentService {
 
     public Optional<AttachmentRecord> findById(Long id) {
         log.info("AttachmentService.findById.in id = {}", id);
-        var result = db.selectFrom(attachmentTable)
+        var result = db.select(metadata())
+            .from(attachmentTable)
             .where(attachmentTable.ID.equal(id))
-            .fetchOptional();
+            .fetchOptionalInto(attachmentTable);
         log.info("AttachmentService.findById.out");
         return result;
     }
@@ -49,9 +64,10 @@ public class AttachmentService {
     public List<AttachmentRecord> findIdsByTaskId(Long taskId) {
         log.info("AttachmentService.findIdsByTaskId.in taskId = {}", taskId);
         var result = List.of(
-            db.selectFrom(attachmentTable)
+            db.select(metadata())
+                .from(attachmentTable)
                 .where(attachmentTable.TASK_ID.equal(taskId))
-                .fetchArray()
+                .fetchArrayInto(attachmentTable)
         );
         log.info("AttachmentService.findIdsByTaskId.out result = {}", result);
         return result;
@@ -59,10 +75,73 @@ public class AttachmentService {
 
     public Map<Long, List<Long>> findIdsByTaskId(List<Long> taskIds) {
         log.info("AttachmentService.findIdsByTaskId.in taskIds = {}", taskIds);
-        var result = db.selectFrom(attachmentTable)
+        var result = db.select(attachmentTable.TASK_ID, attachmentTable.ID)
+            .from(attachmentTable)
             .where(attachmentTable.TASK_ID.in(taskIds))
             .fetchGroups(attachmentTable.TASK_ID, attachmentTable.ID);
         log.info("AttachmentService.findIdsByTaskId.out result = {}", result);
         return result;
     }
+
+    public Resource content(AttachmentRecord attachment) {
+        if (nonNull(attachment.getContentKey())) {
+            return contentStore
+                .orElseThrow(() -> STORAGE_INVOCATION_ERROR.exception("No attachment storage configured"))
+                .get(attachment.getContentKey());
+        }
+        return new ChunkedContentResource(
+            "Attachment " + attachment.getId(),
+            attachment.getLength(),
+            (offset, size) -> readChunk(attachment.getId(), offset, size)
+        );
+    }
+
+    public int migrateContent(int batchSize) {
+        log.info("AttachmentService.migrateContent.in batchSize = {}", batchSize);
+        var store = contentStore
+            .orElseThrow(() -> STORAGE_INVOCATION_ERROR.exception("No attachment storage configured"));
+        var result = ContentMigration.migrate(db, store, attachmentTable, attachmentTable.ID, attachmentTable.CONTENT,
+                                              attachmentTable.CONTENT_KEY, attachmentTable.LENGTH, batchSize);
+        log.info("AttachmentService.migrateContent.out migrated = {}", result);
+        return result;
+    }
+
+    // every chunk is a separate statement, so a slow client never pins a pooled connection for the whole download;
+    // content migrated to the store while a download is running is read from the store from then on
+    private byte[] readChunk(Long id, long offset, int size) throws IOException {
+        log.debug("AttachmentService.readChunk.in id = {}, offset = {}, size = {}", id, offset, size);
+        var chunk = DSL.field("substring({0} from {1} for {2})", byte[].class,
+            attachmentTable.CONTENT, DSL.val(Math.toIntExact(offset + 1)), DSL.val(size));
+        var row = db.select(chunk, attachmentTable.CONTENT_KEY)
+            .from(attachmentTable)
+            .where(attachmentTable.ID.equal(id))
+            .fetchOne();
+        if (isNull(row)) {
+            log.warn("AttachmentService.readChunk attachment id = {} was deleted during download", id);
+            return null;
+        }
+        var result = row.value1();
+        if (isNull(result) && nonNull(row.value2())) {
+            log.debug("AttachmentService.readChunk attachment id = {} was moved to the content store during download", id);
+            var store = contentStore
+                .orElseThrow(() -> STORAGE_INVOCATION_ERROR.exception("No attachment storage configured"));
+            result = ChunkedContentResource.slice(store.get(row.value2()), offset, size);
+        }
+        log.debug("AttachmentService.readChunk.out");
+        return result;
+    }
+
+    private List<Field<?>> metadata() {
+        var length = DSL.coalesce(
+            attachmentTable.LENGTH,
+            DSL.field("octet_length({0})", Long.class, attachmentTable.CONTENT)
+        );
+        return List.of(
+            attachmentTable.ID,
+            attachmentTable.TASK_ID,
+            attachmentTable.TYPE,
+            attachmentTable.CONTENT_KEY,
+            length.as(attachmentTable.LENGTH)
+        );
+    }
 }
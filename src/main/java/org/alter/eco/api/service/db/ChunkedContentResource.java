@@ -0,0 +1,93 @@
+package org.alter.eco.api.service.db;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static java.util.Objects.isNull;
+
+public class ChunkedContentResource extends AbstractResource {
+
+    public static final int CHUNK_SIZE = 256 * 1024;
+
+    private final String description;
+    private final long length;
+    private final ChunkReader reader;
+
+    public ChunkedContentResource(String description, long length, ChunkReader reader) {
+        this.description = description;
+        this.length = length;
+        this.reader = reader;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ChunkedInputStream();
+    }
+
+    // the same slice as a substring of the inline content, read from a resource that holds the whole content
+    static byte[] slice(Resource content, long offset, int size) throws IOException {
+        try (var in = content.getInputStream()) {
+            in.skipNBytes(offset);
+            return in.readNBytes(size);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ChunkReader {
+
+        byte[] read(long offset, int size) throws IOException;
+    }
+
+    private class ChunkedInputStream extends InputStream {
+
+        private long position = 0;
+        private byte[] chunk = new byte[0];
+        private int chunkPosition = 0;
+
+        @Override
+        public int read() throws IOException {
+            var single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (chunkPosition == chunk.length) {
+                if (position >= length) {
+                    return -1;
+                }
+                chunk = reader.read(position, (int) Math.min(CHUNK_SIZE, length - position));
+                if (isNull(chunk) || chunk.length == 0) {
+                    throw new IOException(description + " ended after " + position + " of " + length + " bytes");
+                }
+                position += chunk.length;
+                chunkPosition = 0;
+            }
+            var count = Math.min(len, chunk.length - chunkPosition);
+            System.arraycopy(chunk, chunkPosition, b, off, count);
+            chunkPosition += count;
+            return count;
+        }
+    }
+}
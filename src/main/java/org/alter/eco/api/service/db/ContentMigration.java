@@ -0,0 +1,43 @@
+package org.alter.eco.api.service.db;
+
+import org.alter.eco.api.service.storage.ContentStore;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.TableField;
+import org.jooq.impl.DSL;
+
+// Moves inline BYTEA content of an attachment table to the content store. Must run in a transaction:
+// the claimed rows stay locked until it commits, so concurrent instances migrate disjoint batches
+final class ContentMigration {
+
+    private ContentMigration() {
+    }
+
+    static <R extends Record> int migrate(DSLContext db,
+                                          ContentStore store,
+                                          Table<R> table,
+                                          TableField<R, Long> id,
+                                          TableField<R, byte[]> content,
+                                          TableField<R, String> contentKey,
+                                          TableField<R, Long> length,
+                                          int batchSize) {
+        var rows = db.select(id, content)
+            .from(table)
+            .where(contentKey.isNull())
+            .and(content.isNotNull())
+            .orderBy(id)
+            .limit(batchSize)
+            .forUpdate()
+            .skipLocked()
+            .fetch();
+        // length is filled in as well, once content is gone it can no longer be derived from it
+        rows.forEach(r -> db.update(table)
+            .set(contentKey, store.put(r.value2()))
+            .set(content, (byte[]) null)
+            .set(length, DSL.coalesce(length, DSL.val((long) r.value2().length)))
+            .where(id.equal(r.value1()))
+            .execute());
+        return rows.size();
+    }
+}
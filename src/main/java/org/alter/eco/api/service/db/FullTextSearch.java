@@ -0,0 +1,36 @@
+package org.alter.eco.api.service.db;
+
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+
+import java.util.Arrays;
+
+import static java.util.stream.Collectors.joining;
+
+public final class FullTextSearch {
+
+    private FullTextSearch() {
+    }
+
+    public static Condition matches(Field<?> searchVector, String searchString) {
+        var query = prefixQuery(searchString);
+        if (query.isEmpty()) {
+            return DSL.falseCondition();
+        }
+        return DSL.condition("{0} @@ to_tsquery('simple', {1})", searchVector, DSL.val(query));
+    }
+
+    public static Field<Float> rank(Field<?> searchVector, String searchString) {
+        return DSL.field("ts_rank({0}, to_tsquery('simple', {1}))", Float.class, searchVector, DSL.val(prefixQuery(searchString)));
+    }
+
+    // Every word of the input is matched as a prefix, so the search keeps working while the user is typing.
+    // Only letters and digits pass through which keeps to_tsquery from failing on user supplied operators
+    private static String prefixQuery(String searchString) {
+        return Arrays.stream(searchString.split("[^\\p{L}\\p{N}]+"))
+            .filter(w -> !w.isEmpty())
+            .map(w -> w + ":*")
+            .collect(joining(" & "));
+    }
+}
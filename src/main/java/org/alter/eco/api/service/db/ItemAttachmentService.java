@@ -3,15 +3,24 @@ package org.alter.eco.api.service.db;
 import lombok.RequiredArgsConstructor;
 import org.alter.eco.api.jooq.tables.ItemAttachment;
 import org.alter.eco.api.jooq.tables.records.ItemAttachmentRecord;
+import org.alter.eco.api.service.storage.ContentStore;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.alter.eco.api.exception.InvocationError.STORAGE_INVOCATION_ERROR;
+
 @Component
 @RequiredArgsConstructor
 public class ItemAttachmentService {
@@ -19,11 +28,16 @@ public class ItemAttachmentService {
     private static final Logger log = LoggerFactory.getLogger(ItemAttachmentService.class);
 
     private final DSLContext db;
+    private final Optional<ContentStore> contentStore;
 
     private final ItemAttachment attachmentTable = ItemAttachment.ITEM_ATTACHMENT;
 
     public void attach(List<ItemAttachmentRecord> attachPhotos) {
         log.info("ItemAttachmentService.attach.in attachPhotos = {}", attachPhotos);
+        contentStore.ifPresent(store -> attachPhotos.forEach(a -> {
+            a.setContentKey(store.put(a.getContent()));
+            a.setContent(null);
+        }));
         db.batchInsert(attachPhotos)
             .execute();
         log.info("ItemAttachmentService.attach.out");
@@ -39,9 +53,10 @@ public class ItemAttachmentService {
 
     public Optional<ItemAttachmentRecord> findById(Long id) {
         log.info("ItemAttachmentService.findById.in id = {}", id);
-        var result = db.selectFrom(attachmentTable)
+        var result = db.select(metadata())
+            .from(attachmentTable)
             .where(attachmentTable.ID.equal(id))
-            .fetchOptional();
+            .fetchOptionalInto(attachmentTable);
         log.info("ItemAttachmentService.findById.out");
         return result;
     }
@@ -49,9 +64,10 @@ public class ItemAttachmentService {
     public List<ItemAttachmentRecord> findIdsByItemId(Long itemId) {
         log.info("ItemAttachmentService.findIdsByItemId.in itemId = {}", itemId);
         var result = List.of(
-            db.selectFrom(attachmentTable)
+            db.select(metadata())
+                .from(attachmentTable)
                 .where(attachmentTable.ITEM_ID.equal(itemId))
-                .fetchArray()
+                .fetchArrayInto(attachmentTable)
         );
         log.info("ItemAttachmentService.findIdsByItemId.out result = {}", result);
         return result;
@@ -59,10 +75,73 @@ public class ItemAttachmentService {
 
     public Map<Long, List<Long>> findIdsByItemIds(List<Long> itemIds) {
         log.info("ItemAttachmentService.findIdsByItemIds.in itemIds = {}", itemIds);
-        var result = db.selectFrom(attachmentTable)
+        var result = db.select(attachmentTable.ITEM_ID, attachmentTable.ID)
+            .from(attachmentTable)
             .where(attachmentTable.ITEM_ID.in(itemIds))
             .fetchGroups(attachmentTable.ITEM_ID, attachmentTable.ID);
         log.info("ItemAttachmentService.findIdsByItemIds.out result = {}", result);
         return result;
     }
+
+    public Resource content(ItemAttachmentRecord attachment) {
+        if (nonNull(attachment.getContentKey())) {
+            return contentStore
+                .orElseThrow(() -> STORAGE_INVOCATION_ERROR.exception("No attachment storage configured"))
+                .get(attachment.getContentKey());
+        }
+        return new ChunkedContentResource(
+            "Item attachment " + attachment.getId(),
+            attachment.getLength(),
+            (offset, size) -> readChunk(attachment.getId(), offset, size)
+        );
+    }
+
+    public int migrateContent(int batchSize) {
+        log.info("ItemAttachmentService.migrateContent.in batchSize = {}", batchSize);
+        var store = contentStore
+            .orElseThrow(() -> STORAGE_INVOCATION_ERROR.exception("No attachment storage configured"));
+        var result = ContentMigration.migrate(db, store, attachmentTable, attachmentTable.ID, attachmentTable.CONTENT,
+                                              attachmentTable.CONTENT_KEY, attachmentTable.LENGTH, batchSize);
+        log.info("ItemAttachmentService.migrateContent.out migrated = {}", result);
+        return result;
+    }
+
+    // every chunk is a separate statement, so a slow client never pins a pooled connection for the whole download;
+    // content migrated to the store while a download is running is read from the store from then on
+    private byte[] readChunk(Long id, long offset, int size) throws IOException {
+        log.debug("ItemAttachmentService.readChunk.in id = {}, offset = {}, size = {}", id, offset, size);
+        var chunk = DSL.field("substring({0} from {1} for {2})", byte[].class,
+            attachmentTable.CONTENT, DSL.val(Math.toIntExact(offset + 1)), DSL.val(size));
+        var row = db.select(chunk, attachmentTable.CONTENT_KEY)
+            .from(attachmentTable)
+            .where(attachmentTable.ID.equal(id))
+            .fetchOne();
+        if (isNull(row)) {
+            log.warn("ItemAttachmentService.readChunk item attachment id = {} was deleted during download", id);
+            return null;
+        }
+        var result = row.value1();
+        if (isNull(result) && nonNull(row.value2())) {
+            log.debug("ItemAttachmentService.readChunk item attachment id = {} was moved to the content store during download", id);
+            var store = contentStore
+                .orElseThrow(() -> STORAGE_INVOCATION_ERROR.exception("No attachment storage configured"));
+            result = ChunkedContentResource.slice(store.get(row.value2()), offset, size);
+        }
+        log.debug("ItemAttachmentService.readChunk.out");
+        return result;
+    }
+
+    private List<Field<?>> metadata() {
+        var length = DSL.coalesce(
+            attachmentTable.LENGTH,
+            DSL.field("octet_length({0})", Long.class, attachmentTable.CONTENT)
+        );
+        return List.of(
+            attachmentTable.ID,
+            attachmentTable.ITEM_ID,
+            attachmentTable.TYPE,
+            attachmentTable.CONTENT_KEY,
+            length.as(attachmentTable.LENGTH)
+        );
+    }
 }
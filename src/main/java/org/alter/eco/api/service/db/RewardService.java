@@ -3,20 +3,31 @@ package org.alter.eco.api.service.db;
 import lombok.RequiredArgsConstructor;
 import org.alter.eco.api.jooq.enums.AccountStatus;
 import org.alter.eco.api.jooq.tables.Account;
-import org.alter.eco.api.jooq.tables.Event;
+import org.alter.eco.api.jooq.tables.Ledger;
 import org.alter.eco.api.jooq.tables.records.AccountRecord;
-import org.alter.eco.api.jooq.tables.records.EventRecord;
+import org.alter.eco.api.jooq.tables.records.LedgerRecord;
 import org.alter.eco.api.logic.reward.AccrualByClientIdOperation.AccrualRequest;
 import org.alter.eco.api.logic.reward.UpdateAccountStatusOperation.UpdateStatusRequest;
 import org.alter.eco.api.logic.reward.WriteoffByUserIdOperation.WriteoffRequest;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Row2;
+import org.jooq.Row4;
+import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.summingLong;
+
 @Component
 @RequiredArgsConstructor
 public class RewardService {
@@ -26,30 +37,30 @@ public class RewardService {
     private final DSLContext db;
 
     private final Account accountTable = Account.ACCOUNT;
-    private final Event eventTable = Event.EVENT;
+    private final Ledger ledgerTable = Ledger.LEDGER;
 
     public Optional<AccountRecord> findByUser(String userUuid) {
         log.info("RewardService.findByUser.in userUuid = {}", userUuid);
-        var result = db.selectFrom(accountTable)
+        var result = db.select(accountTable.USER_ID, balance().as(accountTable.AMOUNT),
+                               accountTable.STATUS, accountTable.UPDATED, accountTable.CREATED)
+            .from(accountTable)
             .where(accountTable.USER_ID.equal(userUuid))
-            .fetchOptional();
-        if (result.isEmpty()) {
-            result = db.insertInto(accountTable)
-                .set(accountTable.USER_ID, userUuid)
-                .set(accountTable.AMOUNT, 0L)
-                .returning()
-                .fetchOptional();
-        }
+            .fetchOptionalInto(accountTable);
         log.info("RewardService.findByUser.out");
         return result;
     }
 
-    public void insertEvent(EventRecord event) {
-        log.info("RewardService.insertEvent.in event = {}", event);
-        db.insertInto(eventTable)
-            .set(event)
-            .execute();
-        log.info("RewardService.insertEvent.out");
+    public void createAccounts(Collection<String> userUuids) {
+        log.info("RewardService.createAccounts.in userUuids = {}", userUuids);
+        if (userUuids.isEmpty()) {
+            return;
+        }
+        var insert = db.insertInto(accountTable, accountTable.USER_ID);
+        for (var userUuid : userUuids) {
+            insert = insert.values(userUuid);
+        }
+        insert.onConflictDoNothing().execute();
+        log.info("RewardService.createAccounts.out");
     }
 
     public AccountRecord updateStatus(UpdateStatusRequest request) {
@@ -63,33 +74,122 @@ public class RewardService {
         return result;
     }
 
-    public AccountRecord accrualAccount(AccrualRequest request) {
-        log.info("RewardService.accrualAccount.in request = {}", request);
-        var result = db.insertInto(accountTable)
-            .set(accountTable.USER_ID, request.userUuid())
-            .set(accountTable.AMOUNT, request.amount())
-            .onConflictOnConstraint(accountTable.getPrimaryKey())
-            .doUpdate()
-            .set(accountTable.AMOUNT, accountTable.AMOUNT.add(request.amount()))
-            .set(accountTable.UPDATED, OffsetDateTime.now())
-            .where(accountTable.USER_ID.equal(request.userUuid()))
-            .and(accountTable.STATUS.equal(AccountStatus.ACTIVE))
-            .returning(accountTable.USER_ID)
-            .fetchOne();
-        log.info("RewardService.accrualAccount.out result = {}", result);
+    // credits only append to the ledger, the account row is not locked until they are posted;
+    // not ACTIVE accounts and already used idempotency keys are skipped
+    public List<String> appendCredits(List<AccrualRequest> requests, String name) {
+        log.info("RewardService.appendCredits.in requests = {}", requests.size());
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        var rows = requests.stream()
+            .map(r -> DSL.row(DSL.val(r.userUuid(), String.class), DSL.val(r.amount(), Long.class),
+                              DSL.val(r.initiator(), String.class), DSL.val(r.idempotencyKey(), String.class)))
+            .toArray(Row4[]::new);
+        var values = DSL.values(rows).as("v", "user_id", "amount", "initiator", "idempotency_key");
+        var userId = values.field("user_id", String.class);
+        var result = db.insertInto(ledgerTable, ledgerTable.USER_ID, ledgerTable.AMOUNT, ledgerTable.NAME,
+                                   ledgerTable.INITIATOR, ledgerTable.IDEMPOTENCY_KEY)
+            .select(DSL.select(userId, values.field("amount", Long.class), DSL.val(name),
+                               values.field("initiator", String.class), values.field("idempotency_key", String.class))
+                        .from(values)
+                        .join(accountTable).on(accountTable.USER_ID.equal(userId))
+                        .where(accountTable.STATUS.equal(AccountStatus.ACTIVE)))
+            .onConflict(ledgerTable.IDEMPOTENCY_KEY)
+            .doNothing()
+            .returning(ledgerTable.USER_ID)
+            .fetch(ledgerTable.USER_ID);
+        log.info("RewardService.appendCredits.out result = {}", result);
         return result;
     }
 
-    public AccountRecord writeoffAccount(WriteoffRequest request) {
+    // the balance guard, the debit and its ledger entry are one statement, so concurrent writeoffs cannot overdraw;
+    // empty when the account is not ACTIVE or its posted amount does not cover the writeoff
+    public Optional<Long> writeoffAccount(WriteoffRequest request, String name) {
         log.info("RewardService.writeoffAccount.in request = {}", request);
-        var result = db.update(accountTable)
-            .set(accountTable.AMOUNT, accountTable.AMOUNT.sub(request.amount()))
-            .set(accountTable.UPDATED, OffsetDateTime.now())
-            .where(accountTable.USER_ID.equal(request.userUuid()))
-            .and(accountTable.STATUS.equal(AccountStatus.ACTIVE))
-            .returning(accountTable.USER_ID)
-            .fetchOne();
+        var amount = DSL.val(request.amount());
+        var result = db.resultQuery("""
+                WITH debited AS (
+                    UPDATE {0} SET {1} = {1} - {2}, {3} = now()
+                    WHERE {4} = {5} AND {6} = {7} AND {1} >= {2}
+                    RETURNING {4}, {1}
+                ), entry AS (
+                    INSERT INTO {8} ({9}, {10}, {11}, {12}, {13})
+                    SELECT {4}, -{2}, {14}, {15}, true FROM debited
+                )
+                SELECT {1} FROM debited
+                """,
+            accountTable, accountTable.AMOUNT.getUnqualifiedName(), amount, accountTable.UPDATED.getUnqualifiedName(),
+            accountTable.USER_ID.getUnqualifiedName(), DSL.val(request.userUuid()),
+            accountTable.STATUS.getUnqualifiedName(), DSL.val(AccountStatus.ACTIVE),
+            ledgerTable, ledgerTable.USER_ID.getUnqualifiedName(), ledgerTable.AMOUNT.getUnqualifiedName(),
+            ledgerTable.NAME.getUnqualifiedName(), ledgerTable.INITIATOR.getUnqualifiedName(),
+            ledgerTable.POSTED.getUnqualifiedName(), DSL.val(name), DSL.val(request.initiator(), String.class))
+            .fetchOptional(0, Long.class);
         log.info("RewardService.writeoffAccount.out result = {}", result);
         return result;
     }
+
+    // accounts are split into shards by user hash, folds of different shards never update the same account row
+    public int postPending(int limit, int shard, int shards) {
+        log.info("RewardService.postPending.in limit = {}, shard = {}/{}", limit, shard, shards);
+        var inShard = DSL.condition("(hashtext({0}) & 2147483647) % {1} = {2}",
+                                    ledgerTable.USER_ID, DSL.inline(shards), DSL.inline(shard));
+        var result = post(inShard, limit);
+        log.info("RewardService.postPending.out result = {}", result);
+        return result;
+    }
+
+    public int postPending(String userUuid) {
+        log.info("RewardService.postPending.in userUuid = {}", userUuid);
+        var result = post(ledgerTable.USER_ID.equal(userUuid), Integer.MAX_VALUE);
+        log.info("RewardService.postPending.out result = {}", result);
+        return result;
+    }
+
+    // entries being posted by a concurrent fold are skipped, that fold adds them to the amount itself
+    private int post(Condition condition, int limit) {
+        var pending = DSL.select(ledgerTable.ID)
+            .from(ledgerTable)
+            .where(ledgerTable.POSTED.isFalse())
+            .and(condition)
+            .orderBy(ledgerTable.ID)
+            .limit(limit)
+            .forUpdate()
+            .skipLocked();
+        var posted = db.update(ledgerTable)
+            .set(ledgerTable.POSTED, true)
+            .where(ledgerTable.ID.in(pending))
+            .and(ledgerTable.POSTED.isFalse())
+            .returning(ledgerTable.USER_ID, ledgerTable.AMOUNT)
+            .fetch();
+        var amounts = posted.stream()
+            .collect(groupingBy(LedgerRecord::getUserId, summingLong(LedgerRecord::getAmount)));
+        addToAmounts(amounts);
+        return posted.size();
+    }
+
+    private void addToAmounts(Map<String, Long> amounts) {
+        if (amounts.isEmpty()) {
+            return;
+        }
+        var rows = amounts.entrySet().stream()
+            .map(e -> DSL.row(DSL.val(e.getKey()), DSL.val(e.getValue())))
+            .toArray(Row2[]::new);
+        var values = DSL.values(rows).as("v", "user_id", "amount");
+        db.update(accountTable)
+            .set(accountTable.AMOUNT, accountTable.AMOUNT.add(values.field("amount", Long.class)))
+            .set(accountTable.UPDATED, OffsetDateTime.now())
+            .from(values)
+            .where(accountTable.USER_ID.equal(values.field("user_id", String.class)))
+            .execute();
+    }
+
+    // the balance is the posted amount plus credits appended but not posted yet
+    private Field<Long> balance() {
+        var pending = DSL.select(DSL.coalesce(DSL.sum(ledgerTable.AMOUNT).cast(Long.class), 0L))
+            .from(ledgerTable)
+            .where(ledgerTable.USER_ID.equal(accountTable.USER_ID))
+            .and(ledgerTable.POSTED.isFalse());
+        return accountTable.AMOUNT.add(DSL.field(pending));
+    }
 }
@@ -5,14 +5,24 @@ import org.alter.eco.api.jooq.tables.Item;
 import org.alter.eco.api.jooq.tables.Order;
 import org.alter.eco.api.jooq.tables.records.ItemRecord;
 import org.alter.eco.api.logic.shop.FindItemsOperation.FindItemsRequest;
+import org.alter.eco.api.model.Cursor;
+import org.alter.eco.api.model.Purchase;
 import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.ResultQuery;
+import org.jooq.Row2;
+import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static java.util.Objects.isNull;
+
 @Component
 @RequiredArgsConstructor
 public class ShopService {
@@ -62,17 +72,96 @@ public class ShopService {
         return result;
     }
 
-    public void purchaseItem(String userUuid, Long itemId) {
-        log.info("ShopService.purchaseItem.in itemId = {}", itemId);
-        db.insertInto(orderTable)
-            .set(orderTable.CUSTOMER, userUuid)
-            .set(orderTable.ITEM_ID, itemId)
-            .execute();
-        db.update(itemTable)
-            .set(itemTable.AMOUNT, itemTable.AMOUNT.sub(1))
-            .where(itemTable.ID.equal(itemId))
-            .execute();
-        log.info("ShopService.purchaseItem.out");
+    // the stock guard, the decrement and the order are one statement, so concurrent purchases cannot oversell;
+    // empty when the item does not exist or is sold out
+    public Optional<Long> reserveItem(String userUuid, Long itemId) {
+        log.info("ShopService.reserveItem.in itemId = {}", itemId);
+        var result = db.resultQuery("""
+                WITH reserved AS (
+                    UPDATE {0} SET {1} = {1} - 1
+                    WHERE {2} = {3} AND {1} > 0
+                    RETURNING {2}, {4}
+                ), ordered AS (
+                    INSERT INTO {5} ({6}, {7})
+                    SELECT {8}, {2} FROM reserved
+                )
+                SELECT {4} FROM reserved
+                """,
+            itemTable, itemTable.AMOUNT.getUnqualifiedName(), itemTable.ID.getUnqualifiedName(), DSL.val(itemId),
+            itemTable.PRICE.getUnqualifiedName(),
+            orderTable, orderTable.CUSTOMER.getUnqualifiedName(), orderTable.ITEM_ID.getUnqualifiedName(), DSL.val(userUuid))
+            .fetchOptional(0, Long.class);
+        log.info("ShopService.reserveItem.out result = {}", result);
+        return result;
+    }
+
+    // rows are locked in id order, so checkouts with overlapping baskets cannot deadlock
+    public List<ItemRecord> lockItems(Collection<Long> ids) {
+        log.info("ShopService.lockItems.in ids = {}", ids);
+        var result = db.select(itemTable.ID, itemTable.PRICE, itemTable.AMOUNT)
+            .from(itemTable)
+            .where(itemTable.ID.in(ids))
+            .orderBy(itemTable.ID)
+            .forUpdate()
+            .fetchInto(itemTable);
+        log.info("ShopService.lockItems.out result = {}", result);
+        return result;
+    }
+
+    public List<Long> reserveItems(Map<Long, Long> quantities) {
+        log.info("ShopService.reserveItems.in quantities = {}", quantities);
+        var rows = quantities.entrySet().stream()
+            .map(e -> DSL.row(DSL.val(e.getKey()), DSL.val(e.getValue())))
+            .toArray(Row2[]::new);
+        var values = DSL.values(rows).as("v", "id", "quantity");
+        var quantity = values.field("quantity", Long.class);
+        var result = db.update(itemTable)
+            .set(itemTable.AMOUNT, itemTable.AMOUNT.sub(quantity))
+            .from(values)
+            .where(itemTable.ID.equal(values.field("id", Long.class)))
+            .and(itemTable.AMOUNT.greaterOrEqual(quantity))
+            .returning(itemTable.ID)
+            .fetch(itemTable.ID);
+        log.info("ShopService.reserveItems.out result = {}", result);
+        return result;
+    }
+
+    public void insertOrders(String userUuid, Map<Long, Long> quantities) {
+        log.info("ShopService.insertOrders.in quantities = {}", quantities);
+        var insert = db.insertInto(orderTable, orderTable.CUSTOMER, orderTable.ITEM_ID, orderTable.QUANTITY);
+        for (var e : quantities.entrySet()) {
+            insert = insert.values(userUuid, e.getKey(), e.getValue());
+        }
+        insert.execute();
+        log.info("ShopService.insertOrders.out");
+    }
+
+    public Map<Long, Long> findAmounts(Collection<Long> ids) {
+        log.info("ShopService.findAmounts.in ids = {}", ids);
+        var result = db.select(itemTable.ID, itemTable.AMOUNT)
+            .from(itemTable)
+            .where(itemTable.ID.in(ids))
+            .fetchMap(itemTable.ID, itemTable.AMOUNT);
+        log.info("ShopService.findAmounts.out result = {}", result);
+        return result;
+    }
+
+    // newest first, keyset pages over the (customer, created, id) index
+    public List<Purchase> findPurchases(String userUuid, Cursor after, long limit) {
+        log.info("ShopService.findPurchases.in userUuid = {}, after = {}", userUuid, after);
+        var ordered = db.select(orderTable.ID, orderTable.ITEM_ID, orderTable.QUANTITY, orderTable.CREATED)
+            .select(itemTable.fields())
+            .from(orderTable)
+            .join(itemTable).on(itemTable.ID.equal(orderTable.ITEM_ID))
+            .where(orderTable.CUSTOMER.equal(userUuid))
+            .orderBy(orderTable.CREATED.desc(), orderTable.ID.desc());
+        ResultQuery<Record> page = isNull(after)
+            ? ordered.limit(limit)
+            : ordered.seek(DSL.cast(DSL.val(after.get(0)), orderTable.CREATED), DSL.val(Long.valueOf(after.get(1))))
+                .limit(limit);
+        var result = page.fetch(r -> Purchase.of(r.into(orderTable), r.into(itemTable)));
+        log.info("ShopService.findPurchases.out result = {}", result.size());
+        return result;
     }
 
     public List<ItemRecord> findByUser(String userUuid) {
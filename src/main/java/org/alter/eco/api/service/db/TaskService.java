@@ -1,16 +1,20 @@
 package org.alter.eco.api.service.db;
 
 import lombok.RequiredArgsConstructor;
+import org.alter.eco.api.jooq.enums.TaskStatus;
 import org.alter.eco.api.jooq.tables.Task;
 import org.alter.eco.api.jooq.tables.records.TaskRecord;
 import org.alter.eco.api.logic.task.FindTasksOperation.FindTasksRequest;
 import org.jooq.DSLContext;
+import org.jooq.Row2;
+import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Component
@@ -52,6 +56,28 @@ public class TaskService {
         log.info("TaskService.update.out");
     }
 
+    @SuppressWarnings("unchecked")
+    public List<TaskRecord> updateStatuses(Map<Long, TaskStatus> statuses) {
+        log.info("TaskService.updateStatuses.in statuses = {}", statuses);
+        var rows = statuses.entrySet().stream()
+            .map(e -> DSL.row(DSL.val(e.getKey()), DSL.val(e.getValue())))
+            .toArray(Row2[]::new);
+        var values = DSL.values(rows).as("v", "id", "status");
+        var id = values.field("id", Long.class);
+        var status = values.field("status", TaskStatus.class);
+        var result = db.update(taskTable)
+            .set(taskTable.STATUS, status)
+            .set(taskTable.UPDATED, LocalDateTime.now())
+            .from(values)
+            .where(taskTable.ID.equal(id))
+            // enum order follows the task lifecycle, statuses never move backwards
+            .and(taskTable.STATUS.lessOrEqual(status))
+            .returning(taskTable.ID, taskTable.STATUS, taskTable.ASSIGNEE, taskTable.CREATED_BY, taskTable.REWARD)
+            .fetch();
+        log.info("TaskService.updateStatuses.out result = {}", result.size());
+        return result;
+    }
+
     public List<TaskRecord> findByFilters(FindTasksRequest request) {
         log.info("TaskService.findByFilters.in request = {}", request);
         var result = List.of(
@@ -0,0 +1,74 @@
+package org.alter.eco.api.service.db;
+
+import lombok.RequiredArgsConstructor;
+import org.alter.eco.api.jooq.tables.AttachmentThumbnail;
+import org.alter.eco.api.jooq.tables.records.AttachmentThumbnailRecord;
+import org.alter.eco.api.service.storage.ContentStore;
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Objects.nonNull;
+import static org.alter.eco.api.exception.InvocationError.STORAGE_INVOCATION_ERROR;
+
+@Component
+@RequiredArgsConstructor
+public class ThumbnailService {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private final DSLContext db;
+    private final Optional<ContentStore> contentStore;
+
+    private final AttachmentThumbnail thumbnailTable = AttachmentThumbnail.ATTACHMENT_THUMBNAIL;
+
+    public void insert(AttachmentThumbnailRecord thumbnail) {
+        log.info("ThumbnailService.insert.in attachmentId = {}, size = {}, length = {}",
+            thumbnail.getAttachmentId(), thumbnail.getSize(), thumbnail.getLength());
+        contentStore.ifPresent(store -> {
+            thumbnail.setContentKey(store.put(thumbnail.getContent()));
+            thumbnail.setContent(null);
+        });
+        db.insertInto(thumbnailTable)
+            .set(thumbnail)
+            .onConflictDoNothing()
+            .execute();
+        log.info("ThumbnailService.insert.out");
+    }
+
+    public Optional<AttachmentThumbnailRecord> find(Long attachmentId, String size) {
+        log.info("ThumbnailService.find.in attachmentId = {}, size = {}", attachmentId, size);
+        var result = db.selectFrom(thumbnailTable)
+            .where(thumbnailTable.ATTACHMENT_ID.equal(attachmentId))
+            .and(thumbnailTable.SIZE.equal(size))
+            .fetchOptional();
+        log.info("ThumbnailService.find.out");
+        return result;
+    }
+
+    // thumbnails generated before a content store was configured stay inline
+    public Resource content(AttachmentThumbnailRecord thumbnail) {
+        if (nonNull(thumbnail.getContentKey())) {
+            return contentStore
+                .orElseThrow(() -> STORAGE_INVOCATION_ERROR.exception("No attachment storage configured"))
+                .get(thumbnail.getContentKey());
+        }
+        return new ByteArrayResource(thumbnail.getContent());
+    }
+
+    public List<String> findSizes(Long attachmentId) {
+        log.info("ThumbnailService.findSizes.in attachmentId = {}", attachmentId);
+        var result = db.select(thumbnailTable.SIZE)
+            .from(thumbnailTable)
+            .where(thumbnailTable.ATTACHMENT_ID.equal(attachmentId))
+            .fetch(thumbnailTable.SIZE);
+        log.info("ThumbnailService.findSizes.out result = {}", result);
+        return result;
+    }
+}
@@ -0,0 +1,49 @@
+package org.alter.eco.api.service.image;
+
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+@Component
+public class ImageResizer {
+
+    public Optional<BufferedImage> read(InputStream in) throws IOException {
+        return Optional.ofNullable(ImageIO.read(in));
+    }
+
+    public Optional<byte[]> resize(BufferedImage source, String type, int maxSide) throws IOException {
+        var writers = ImageIO.getImageWritersByMIMEType(type);
+        if (!writers.hasNext()) {
+            return Optional.empty();
+        }
+        var scale = Math.min(1.0, (double) maxSide / Math.max(source.getWidth(), source.getHeight()));
+        var width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        var height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        // JPEG has no alpha channel, writing an ARGB image there produces broken colors
+        var alpha = source.getColorModel().hasAlpha() && !"image/jpeg".equals(type);
+        var target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        var graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        var writer = writers.next();
+        var out = new ByteArrayOutputStream();
+        try (var stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(target);
+        } finally {
+            writer.dispose();
+        }
+        return Optional.of(out.toByteArray());
+    }
+}
@@ -0,0 +1,10 @@
+package org.alter.eco.api.service.storage;
+
+import org.springframework.core.io.Resource;
+
+public interface ContentStore {
+
+    String put(byte[] content);
+
+    Resource get(String key);
+}
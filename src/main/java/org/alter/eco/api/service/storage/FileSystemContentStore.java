@@ -0,0 +1,91 @@
+package org.alter.eco.api.service.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static org.alter.eco.api.exception.ApplicationError.ATTACHMENTS_NOT_FOUND;
+import static org.alter.eco.api.exception.InvocationError.STORAGE_INVOCATION_ERROR;
+
+@Component
+@ConditionalOnProperty(name = "attachment.storage.type", havingValue = "filesystem")
+public class FileSystemContentStore implements ContentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSystemContentStore.class);
+
+    private final Path root;
+    private final Path incoming;
+
+    public FileSystemContentStore(@Value("${attachment.storage.root}") String root) throws IOException {
+        this.root = Path.of(root).toAbsolutePath();
+        this.incoming = Files.createDirectories(this.root.resolve("incoming"));
+    }
+
+    @Override
+    public String put(byte[] content) {
+        var key = sha256(content);
+        var target = pathOf(key);
+        if (Files.exists(target)) {
+            log.info("FileSystemContentStore.put.out key = {}, deduplicated", key);
+            return key;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            var temp = Files.createTempFile(incoming, key, ".tmp");
+            try {
+                Files.write(temp, content);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                log.info("FileSystemContentStore.put key = {} stored concurrently", key);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw STORAGE_INVOCATION_ERROR.exception(e, "Cannot store content with key = " + key);
+        }
+        log.info("FileSystemContentStore.put.out key = {}, length = {}", key, content.length);
+        return key;
+    }
+
+    @Override
+    public Resource get(String key) {
+        var path = pathOf(key);
+        if (!Files.isRegularFile(path)) {
+            throw ATTACHMENTS_NOT_FOUND.exception("No content stored with key = " + key);
+        }
+        return new FileSystemResource(path);
+    }
+
+    // two levels of fan-out keep directories small: ab/cd/abcd...
+    private Path pathOf(String key) {
+        if (!key.matches("[0-9a-f]{64}")) {
+            throw ATTACHMENTS_NOT_FOUND.exception("Invalid content key = " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(content);
+            var result = new StringBuilder(digest.length * 2);
+            for (var b : digest) {
+                result.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
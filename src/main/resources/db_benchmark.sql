@@ -0,0 +1,66 @@
+/* Manual benchmarks. Run against a scratch database created with db_script.sql */
+
+/* Full-text search over 1M tasks and 1M shop items */
+SELECT populate_tasks(1000000);
+SELECT populate_shop(1000000);
+ANALYZE public.task;
+ANALYZE public.item;
+
+/* Previous implementation: prefix LIKE, sequential scan */
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT *
+FROM public.task
+WHERE title LIKE 'Task 4242%'
+LIMIT 20;
+
+/* Current implementation: GIN index over search_vector, ranked */
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT *
+FROM public.task
+WHERE search_vector @@ to_tsquery('simple', 'task:* & 4242:*')
+ORDER BY ts_rank(search_vector, to_tsquery('simple', 'task:* & 4242:*')) DESC, id
+LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT *
+FROM public.item
+WHERE search_vector @@ to_tsquery('simple', 'item:* & 4242:*')
+ORDER BY ts_rank(search_vector, to_tsquery('simple', 'item:* & 4242:*')) DESC, id
+LIMIT 20;
+
+/* Tasks near a point: GiST index, KNN ordering */
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT *
+FROM public.task
+WHERE coordinate <@ circle(point(30.3, 59.9), 1.5)
+ORDER BY coordinate <-> point(30.3, 59.9), id
+LIMIT 20;
+
+/* Tasks visible on a map screen */
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT *
+FROM public.task
+WHERE coordinate <@ box(point(29.5, 59.5), point(31.0, 60.2))
+ORDER BY id
+LIMIT 100;
+
+/* Flash sale: 100 units of one item bought from 64 connections. Save the statement below as purchase.sql and run
+   pgbench -n -c 64 -j 8 -t 100 -D item=1000001 -f purchase.sql
+   Previous implementation checked the amount in Java and decremented without a guard */
+INSERT INTO public.item (id, title, status, price, type, amount, created_by)
+VALUES (1000001, 'Flash sale', 'TO_DO', 1, 'COUPON', 100, 'benchmark');
+
+WITH reserved AS (
+    UPDATE public.item SET amount = amount - 1
+    WHERE id = :item AND amount > 0
+    RETURNING id, price
+), ordered AS (
+    INSERT INTO public.order (customer, item_id)
+    SELECT 'client' || :client_id, id FROM reserved
+)
+SELECT price FROM reserved;
+
+/* Must report amount = 0 and orders = 100 */
+SELECT amount, (SELECT count(*) FROM public.order WHERE item_id = 1000001) AS orders
+FROM public.item
+WHERE id = 1000001;
@@ -0,0 +1,43 @@
+/* Moves a database created before the reward ledger onto it. Run once with the application stopped */
+BEGIN;
+
+CREATE TABLE public.ledger
+(
+    id              BIGSERIAL PRIMARY KEY,
+    user_id         VARCHAR   NOT NULL REFERENCES public.account (user_id),
+    amount          BIGINT    NOT NULL,
+    name            VARCHAR,
+    initiator       VARCHAR,
+    idempotency_key VARCHAR UNIQUE,
+    posted          BOOLEAN   NOT NULL DEFAULT false,
+    created         timestamp NOT NULL DEFAULT now()
+);
+
+CREATE INDEX ON public.ledger (user_id) WHERE NOT posted;
+CREATE INDEX ON public.ledger (id) WHERE NOT posted;
+
+/* Old events are kept for reference only. Their values are already part of account.amount,
+   so they are not ported as entries, the opening balance below accounts for them */
+ALTER TABLE public.event RENAME TO event_archive;
+
+/* One posted opening entry per account, so that account.amount is the sum of its posted entries */
+INSERT INTO public.ledger (user_id, amount, name, initiator, idempotency_key, posted)
+SELECT user_id, amount, 'OpeningBalance', 'migration', 'opening:' || user_id, true
+FROM public.account
+ON CONFLICT (idempotency_key) DO NOTHING;
+
+COMMIT;
+
+/* Verify: accounts whose amount differs from the sum of their posted entries. Must return no rows */
+SELECT a.user_id, a.amount, coalesce(l.posted_sum, 0) AS posted_sum
+FROM public.account a
+         LEFT JOIN (SELECT user_id, sum(amount) AS posted_sum
+                    FROM public.ledger
+                    WHERE posted
+                    GROUP BY user_id) l ON l.user_id = a.user_id
+WHERE a.amount <> coalesce(l.posted_sum, 0);
+
+/* Rebuild: resets account.amount from the posted entries. Run with the application stopped */
+UPDATE public.account a
+SET amount  = coalesce((SELECT sum(l.amount) FROM public.ledger l WHERE l.user_id = a.user_id AND l.posted), 0),
+    updated = now();
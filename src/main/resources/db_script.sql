@@ -49,20 +49,43 @@ CREATE TABLE public.task
     due_date    timestamp,
     updated     timestamp,
     created_by  VARCHAR            NOT NULL,
-    created     timestamp          NOT NULL DEFAULT now()
+    created     timestamp          NOT NULL DEFAULT now(),
+    search_vector tsvector GENERATED ALWAYS AS (
+        to_tsvector('simple', coalesce(title, '') || ' ' || coalesce(description, ''))
+        ) STORED
 );
 
 CREATE INDEX ON public.task (status, assignee, created_by);
 CREATE INDEX ON public.task (assignee, created_by);
 CREATE INDEX ON public.task (created_by);
+CREATE INDEX ON public.task (created, id);
+CREATE INDEX ON public.task (reward, id);
+CREATE INDEX ON public.task ((coalesce(due_date, 'infinity'::timestamp)), id);
+CREATE INDEX ON public.task USING gin (search_vector);
+CREATE INDEX ON public.task USING gist (coordinate);
 
 CREATE TABLE public.attachment
 (
-    id      BIGSERIAL PRIMARY KEY,
-    task_id BIGINT REFERENCES public.task (id) ON DELETE CASCADE,
-    content BYTEA,
-    type    VARCHAR,
-    length  BIGINT
+    id          BIGSERIAL PRIMARY KEY,
+    task_id     BIGINT REFERENCES public.task (id) ON DELETE CASCADE,
+    content     BYTEA,
+    content_key VARCHAR,
+    type        VARCHAR,
+    length      BIGINT
+);
+
+CREATE INDEX ON public.attachment (content_key);
+ALTER TABLE public.attachment ALTER COLUMN content SET STORAGE EXTERNAL;
+
+CREATE TABLE public.attachment_thumbnail
+(
+    attachment_id BIGINT  NOT NULL REFERENCES public.attachment (id) ON DELETE CASCADE,
+    size          VARCHAR NOT NULL,
+    content       BYTEA,
+    content_key   VARCHAR,
+    type          VARCHAR NOT NULL,
+    length        BIGINT  NOT NULL,
+    PRIMARY KEY (attachment_id, size)
 );
 
 CREATE TABLE public.item
@@ -74,34 +97,50 @@ CREATE TABLE public.item
     price       BIGINT             NOT NULL,
     type        public.item_type   NOT NULL,
     amount      BIGINT             NOT NULL,
-    created_by  VARCHAR            NOT NULL
+    created_by  VARCHAR            NOT NULL,
+    search_vector tsvector GENERATED ALWAYS AS (
+        to_tsvector('simple', coalesce(title, '') || ' ' || coalesce(description, ''))
+        ) STORED
 );
 
+CREATE INDEX ON public.item USING gin (search_vector);
+
 CREATE TABLE public.item_attachment
 (
-    id      BIGSERIAL PRIMARY KEY,
-    item_id BIGINT REFERENCES public.task (id) ON DELETE CASCADE,
-    content BYTEA,
-    type    VARCHAR,
-    length  BIGINT
+    id          BIGSERIAL PRIMARY KEY,
+    item_id     BIGINT REFERENCES public.task (id) ON DELETE CASCADE,
+    content     BYTEA,
+    content_key VARCHAR,
+    type        VARCHAR,
+    length      BIGINT
 );
 
+CREATE INDEX ON public.item_attachment (content_key);
+ALTER TABLE public.item_attachment ALTER COLUMN content SET STORAGE EXTERNAL;
+
 CREATE TABLE public.order
 (
+    id       BIGSERIAL PRIMARY KEY,
     customer VARCHAR   NOT NULL,
     item_id  BIGINT    NOT NULL REFERENCES public.item (id),
+    quantity BIGINT    NOT NULL DEFAULT 1 CHECK (quantity > 0),
     created  TIMESTAMP NOT NULL DEFAULT now()
 );
 
+CREATE INDEX ON public.order (customer, created, id);
+
 CREATE TABLE public.approval
 (
-    task_id BIGINT PRIMARY KEY,
-    status  public.task_status    NOT NULL,
-    counter BIGINT    DEFAULT (0) NOT NULL,
-    created timestamp DEFAULT now(),
+    task_id  BIGINT PRIMARY KEY,
+    status   public.task_status NOT NULL,
+    counter  BIGINT DEFAULT (0) NOT NULL,
+    created  timestamp DEFAULT now(),
+    deadline timestamp NOT NULL,
     CONSTRAINT unique_task_id_constr UNIQUE (task_id)
 );
 
+CREATE INDEX ON public.approval (deadline);
+
 CREATE TABLE public.vote
 (
     client_id VARCHAR,
@@ -119,15 +158,23 @@ CREATE TABLE public.account
     created timestamp             NOT NULL DEFAULT now()
 );
 
-CREATE TABLE public.event
+/* Append-only balance history. account.amount is the sum of posted entries,
+   credits are appended unposted and folded into it in the background */
+CREATE TABLE public.ledger
 (
-    user_id   VARCHAR NOT NULL REFERENCES public.account (user_id),
-    value     BIGINT  NOT NULL,
-    name      VARCHAR,
-    initiator VARCHAR,
-    timestamp timestamp
+    id              BIGSERIAL PRIMARY KEY,
+    user_id         VARCHAR   NOT NULL REFERENCES public.account (user_id),
+    amount          BIGINT    NOT NULL,
+    name            VARCHAR,
+    initiator       VARCHAR,
+    idempotency_key VARCHAR UNIQUE,
+    posted          BOOLEAN   NOT NULL DEFAULT false,
+    created         timestamp NOT NULL DEFAULT now()
 );
 
+CREATE INDEX ON public.ledger (user_id) WHERE NOT posted;
+CREATE INDEX ON public.ledger (id) WHERE NOT posted;
+
 /* For test population */
 CREATE OR REPLACE FUNCTION populate_tasks(n INTEGER) RETURNS VOID
     LANGUAGE plpgsql